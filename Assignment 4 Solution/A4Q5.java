@@ -99,6 +99,78 @@ public class A4Q5 {
                 }
 
 
+		// sort using parallel merge sort
+		int [] Apmerge = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Apmerge[j] = A[j];
+		Sorting.parallelMergeSort(Apmerge);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Apmerge)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and parallel merge sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using parallel merge sort:");
+                    Sorting.printArray(Apmerge);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using natural merge sort
+		int [] Anatural = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Anatural[j] = A[j];
+		Sorting.naturalMergeSort(Anatural);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Anatural)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and natural merge sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using natural merge sort:");
+                    Sorting.printArray(Anatural);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using bottom-up merge sort
+		int [] Abottomup = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Abottomup[j] = A[j];
+		Sorting.bottomUpMergeSort(Abottomup);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Abottomup)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and bottom-up merge sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using bottom-up merge sort:");
+                    Sorting.printArray(Abottomup);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using in-place merge sort
+		int [] Ainplace = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Ainplace[j] = A[j];
+		Sorting.inPlaceMergeSort(Ainplace);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Ainplace)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and in-place merge sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using in-place merge sort:");
+                    Sorting.printArray(Ainplace);
+                    System.out.println("\n");
+                }
+
+
+
 		// sort using heap sort
 		int [] Aheap = new int[n];
 		for (int j=0; j<A.length; ++j)
@@ -117,6 +189,42 @@ public class A4Q5 {
 
 
 
+		// sort using bottom-up heap sort
+		int [] Abuheap = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Abuheap[j] = A[j];
+		Sorting.bottomUpHeapSort(Abuheap);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Abuheap)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and bottom-up heap sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using bottom-up heap sort:");
+                    Sorting.printArray(Abuheap);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using 4-ary heap sort
+		int [] Aheap4 = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Aheap4[j] = A[j];
+		Sorting.quaternaryHeapSort(Aheap4);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Aheap4)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and 4-ary heap sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using 4-ary heap sort:");
+                    Sorting.printArray(Aheap4);
+                    System.out.println("\n");
+                }
+
+
+
 		// sort using deterministic quicksort sort
 		int [] Adquick = new int[n];
 		for (int j=0; j<A.length; ++j)
@@ -150,6 +258,285 @@ public class A4Q5 {
                     Sorting.printArray(Aqsmed3);
                     System.out.println("\n");
                 }
+
+
+
+		// sort using parallel improved quicksort
+		int [] Apqsmed3 = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Apqsmed3[j] = A[j];
+		Sorting.parallelQuicksortImproved(Apqsmed3);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Apqsmed3)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and parallel improved quicksort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using parallel improved quicksort:");
+                    Sorting.printArray(Apqsmed3);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using deterministic introsort
+		int [] Aintro = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Aintro[j] = A[j];
+		Sorting.introQuickSort(Aintro);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Aintro)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and deterministic introsort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using deterministic introsort:");
+                    Sorting.printArray(Aintro);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using improved introsort
+		int [] Aintmed3 = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Aintmed3[j] = A[j];
+		Sorting.introQuicksortImproved(Aintmed3);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Aintmed3)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and improved introsort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using improved introsort:");
+                    Sorting.printArray(Aintmed3);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using three-way quicksort
+		int [] Aqs3way = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Aqs3way[j] = A[j];
+		Sorting.quicksort3Way(Aqs3way);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Aqs3way)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and three-way quicksort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using three-way quicksort:");
+                    Sorting.printArray(Aqs3way);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using dual-pivot quicksort
+		int [] Adual = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Adual[j] = A[j];
+		Sorting.dualPivotQuicksort(Adual);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Adual)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and dual-pivot quicksort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using dual-pivot quicksort:");
+                    Sorting.printArray(Adual);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using radix sort
+		int [] Aradix = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Aradix[j] = A[j];
+		Sorting.radixSort(Aradix);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Aradix)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and radix sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using radix sort:");
+                    Sorting.printArray(Aradix);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using American flag sort
+		int [] Aflag = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Aflag[j] = A[j];
+		Sorting.americanFlagSort(Aflag);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Aflag)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and American flag sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using American flag sort:");
+                    Sorting.printArray(Aflag);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using parallel radix sort
+		int [] Apradix = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Apradix[j] = A[j];
+		Sorting.parallelRadixSort(Apradix);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Apradix)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and parallel radix sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using parallel radix sort:");
+                    Sorting.printArray(Apradix);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using counting sort
+		int [] Acount = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Acount[j] = A[j];
+		Sorting.countingSort(Acount);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Acount)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and counting sort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using counting sort:");
+                    Sorting.printArray(Acount);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using block quicksort
+		int [] Ablock = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Ablock[j] = A[j];
+		Sorting.blockQuicksort(Ablock);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Ablock)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and block quicksort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using block quicksort:");
+                    Sorting.printArray(Ablock);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using vector quicksort
+		int [] Avector = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Avector[j] = A[j];
+		Sorting.vectorQuicksort(Avector);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Avector)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and vector quicksort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using vector quicksort:");
+                    Sorting.printArray(Avector);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort using sorting network quicksort
+		int [] Anetwork = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Anetwork[j] = A[j];
+		Sorting.networkQuicksort(Anetwork);
+
+		// check whether sorted arrays are equal
+                if (!Sorting.testArrays(Ajava,Anetwork)) {
+                    System.out.println("ERROR:  sorted arrays using java's sort function and sorting network quicksort are not the same");
+                    System.out.println("Sorted using java's sort function:");
+                    Sorting.printArray(Ajava);
+                    System.out.println("Sorted using sorting network quicksort:");
+                    Sorting.printArray(Anetwork);
+                    System.out.println("\n");
+                }
+
+
+
+		// sort the n/4 smallest entries using partial sort
+		int [] Apartial = new int[n];
+		for (int j=0; j<A.length; ++j)
+		    Apartial[j] = A[j];
+		int kpartial = n / 4;
+		Sorting.partialSort(Apartial,kpartial);
+
+		// check whether the prefix matches the start of the sorted array
+		for (int j=0; j<kpartial; ++j)
+		    if (Apartial[j] != Ajava[j]) {
+			System.out.println("ERROR:  partial sort of the " + kpartial + " smallest entries"
+					   + " differs from java's sort function at position " + j);
+			System.out.println("\n");
+			break;
+		    }
+
+
+
+		// find the n/4 largest entries using topK
+		int ktop = n / 4;
+		int [] Atop = Sorting.topK(A,ktop);
+
+		// check whether they match the end of the sorted array, largest first
+		for (int j=0; j<ktop; ++j)
+		    if (Atop[j] != Ajava[n-1-j]) {
+			System.out.println("ERROR:  topK(A," + ktop + ") differs from the end of the array"
+					   + " sorted by java's sort function at position " + j);
+			System.out.println("\n");
+			break;
+		    }
+
+
+
+		// select the entry of rank n/4 and the median
+		if (n > 0) {
+		    int [] Aselect = new int[n];
+		    for (int j=0; j<A.length; ++j)
+			Aselect[j] = A[j];
+		    int rank = n / 4;
+		    int selected = Sorting.select(Aselect,rank);
+
+		    // check whether the selected entry is the one at that rank in the sorted array
+		    if (selected != Ajava[rank]) {
+			System.out.println("ERROR:  select(A," + rank + ") returned " + selected
+					   + ", java's sort function gives " + Ajava[rank]);
+			System.out.println("\n");
+		    }
+
+		    int [] Amedian = new int[n];
+		    for (int j=0; j<A.length; ++j)
+			Amedian[j] = A[j];
+		    int median = Sorting.median(Amedian);
+
+		    // check whether the median is the middle entry of the sorted array
+		    if (median != Ajava[(n-1) / 2]) {
+			System.out.println("ERROR:  median(A) returned " + median
+					   + ", java's sort function gives " + Ajava[(n-1) / 2]);
+			System.out.println("\n");
+		    }
+		}
 	    }
 
     }
@@ -0,0 +1,203 @@
+/**
+ * Copies of <code>Sorting.quicksortImproved</code> and <code>Sorting.dualPivotQuicksort</code>
+ * that count their key comparisons, for <code>SortingBenchmark</code>.  Every comparison of
+ * two entries goes through <code>less</code>, which increments the counter of the object
+ * doing the sort, so the copies make exactly the same comparisons and moves as the
+ * originals (with the same quicksort cutoff) while those stay uninstrumented.  Each call
+ * uses its own counter, so sorts on different threads do not interfere.
+ *
+ * @version 1.0
+ */
+public class CountingSorts {
+
+    /** number of key comparisons made so far by this sort */
+    private long comparisons;
+
+
+    /**
+     * Sorts the input array in the same way as <code>Sorting.quicksortImproved</code>.
+     *
+     * @return number of key comparisons made
+     * @param  A integer array
+     */
+    public static long quicksortImproved(int [] A)
+    {
+	CountingSorts c = new CountingSorts();
+
+	// partial recursive quicksort with early abort
+	c.qsortImproved(A,0,A.length-1);
+
+	// insertion sort on nearly-sorted array A
+	c.insertionSort(A);
+	return c.comparisons;
+    }
+
+
+    /**
+     * Sorts the input array in the same way as <code>Sorting.dualPivotQuicksort</code>.
+     *
+     * @return number of key comparisons made
+     * @param  A integer array
+     */
+    public static long dualPivotQuicksort(int [] A)
+    {
+	CountingSorts c = new CountingSorts();
+
+	// partial recursive quicksort with early abort
+	c.qsortDualPivot(A,0,A.length-1);
+
+	// insertion sort on nearly-sorted array A
+	c.insertionSort(A);
+	return c.comparisons;
+    }
+
+
+    /*
+     * Returns x < y, counting one comparison
+     */
+    private boolean less(int x, int y) {
+	++comparisons;
+	return x < y;
+    }
+
+
+    /*
+     * Insertion sort on A, as in Sorting.insertionSort
+     */
+    private void insertionSort(int [] A) {
+	for (int i=1; i<A.length; ++i) {
+	    int j = i;
+	    int tmp = A[i];
+	    while (j > 0 && less(tmp,A[j-1])) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+    /*
+     * recursive worker function for quicksortImproved, as in Sorting.qsortImproved
+     */
+    private void qsortImproved(int [] A, int p, int r) {
+	if (r-p+1 >= Sorting.quicksortCutoff) {
+	    int q = partitionImproved(A,p,r);
+	    qsortImproved(A,p,q-1);
+	    qsortImproved(A,q+1,r);
+	}
+    }
+
+
+    /*
+     * Median-of-3 partitioning of A[p..r], as in Sorting.partitionImproved
+     */
+    private int partitionImproved(int [] A, int p, int r) {
+	int mid = (r + p) / 2;
+
+	if (less(A[mid],A[p])) {
+	    int tmp = A[p];
+	    A[p] = A[mid];
+	    A[mid] = tmp;
+	}
+
+	if (less(A[r],A[mid])) {
+	    int tmp = A[mid];
+	    A[mid] = A[r];
+	    A[r] = tmp;
+	}
+
+	if (less(A[mid],A[p])) {
+	    int tmp = A[p];
+	    A[p] = A[mid];
+	    A[mid] = tmp;
+	}
+
+	int tmp = A[mid];
+	A[mid] = A[r-1];
+	A[r-1] = tmp;
+
+	int x = A[r-1];
+	int i=p;
+	for (int j=p+1; j<r-1; ++j) {
+	    if (!less(x,A[j])) {
+		++i;
+		tmp = A[i];
+		A[i] = A[j];
+		A[j] = tmp;
+	    }
+	}
+	tmp = A[i+1];
+	A[i+1] = A[r-1];
+	A[r-1] = tmp;
+
+	return i+1;
+    }
+
+
+    /*
+     * recursive worker function for dualPivotQuicksort, as in Sorting.qsortDualPivot
+     */
+    private void qsortDualPivot(int [] A, int p, int r) {
+	if (r-p+1 >= Sorting.quicksortCutoff) {
+	    // move the pivot candidates to the ends of the subarray, smaller one first
+	    int third = (r-p+1) / 3;
+	    int tmp = A[p];
+	    A[p] = A[p+third];
+	    A[p+third] = tmp;
+	    tmp = A[r];
+	    A[r] = A[r-third];
+	    A[r-third] = tmp;
+
+	    if (less(A[r],A[p])) {
+		tmp = A[p];
+		A[p] = A[r];
+		A[r] = tmp;
+	    }
+
+	    // invariant: A[p+1..lt-1] < x1, x1 <= A[lt..k-1] <= x2, A[gt+1..r-1] > x2
+	    int x1 = A[p];
+	    int x2 = A[r];
+	    int lt = p+1;
+	    int gt = r-1;
+	    for (int k=lt; k<=gt; ++k) {
+		if (less(A[k],x1)) {
+		    tmp = A[k];
+		    A[k] = A[lt];
+		    A[lt] = tmp;
+		    ++lt;
+		}
+		else if (less(x2,A[k])) {
+		    while (less(x2,A[gt]) && k < gt)
+			--gt;
+		    tmp = A[k];
+		    A[k] = A[gt];
+		    A[gt] = tmp;
+		    --gt;
+
+		    if (less(A[k],x1)) {
+			tmp = A[k];
+			A[k] = A[lt];
+			A[lt] = tmp;
+			++lt;
+		    }
+		}
+	    }
+
+	    // move the pivots to their final positions
+	    --lt;
+	    ++gt;
+	    tmp = A[p];
+	    A[p] = A[lt];
+	    A[lt] = tmp;
+	    tmp = A[r];
+	    A[r] = A[gt];
+	    A[gt] = tmp;
+
+	    qsortDualPivot(A,p,lt-1);
+	    if (x1 < x2)
+		qsortDualPivot(A,lt+1,gt-1);
+	    qsortDualPivot(A,gt+1,r);
+	}
+    }
+}
@@ -0,0 +1,442 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static java.lang.Integer.parseInt;
+import java.lang.IllegalArgumentException;
+
+/**
+ * External merge sort for files of int values that are too large to sort in memory.  The
+ * input is a binary file of big-endian 32-bit integers.  In the first pass it is read in
+ * runs of a fixed number of values, each run is sorted in memory with one of the
+ * algorithms from <code>Sorting</code>, and the sorted runs are written to temporary
+ * files.  Each following pass merges groups of up to <code>fanIn</code> runs into one,
+ * until a single run (the output file) remains.  The run files are kept in a temporary
+ * directory, by default the directory of the output file, since the system temporary
+ * directory is often a small or memory-backed file system.  All file access goes through
+ * buffered NIO channels, and the number of bytes read and written is reported for every pass.
+ *
+ * @version 1.0
+ */
+public class ExternalSort {
+
+    /** smallest buffer, in int values, used for each run during a merge */
+    private static final int MIN_BUFFER = 1024;
+
+
+    /**
+     * Sorts the int values in the input file and writes them to the output file, keeping
+     * the temporary run files in the directory of the output file.
+     *
+     * @param  input binary file of big-endian int values
+     * @param  output file to receive the sorted values (replaced if it exists)
+     * @param  runSize number of values sorted in memory at a time
+     * @param  fanIn maximum number of runs merged at a time
+     * @param  useMergeSort sort runs with <code>Sorting.mergeSort</code> if true, and with
+     *         <code>Sorting.quicksortImproved</code> otherwise
+     * @throws IllegalArgumentException if runSize is not in [1, 2^29), fanIn < 2, or the
+     *         length of the input file is not a multiple of 4
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void sort(Path input, Path output, int runSize, int fanIn, boolean useMergeSort)
+	throws IOException
+    {
+	sort(input, output, runSize, fanIn, useMergeSort, output.toAbsolutePath().getParent());
+    }
+
+
+    /**
+     * Sorts the int values in the input file and writes them to the output file.  The
+     * temporary run files are created in tempDir and deleted even if a pass fails.
+     *
+     * @param  input binary file of big-endian int values
+     * @param  output file to receive the sorted values (replaced if it exists)
+     * @param  runSize number of values sorted in memory at a time
+     * @param  fanIn maximum number of runs merged at a time
+     * @param  useMergeSort sort runs with <code>Sorting.mergeSort</code> if true, and with
+     *         <code>Sorting.quicksortImproved</code> otherwise
+     * @param  tempDir existing directory to hold the temporary run files
+     * @throws IllegalArgumentException if runSize is not in [1, 2^29), fanIn < 2, or the
+     *         length of the input file is not a multiple of 4
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void sort(Path input, Path output, int runSize, int fanIn, boolean useMergeSort,
+			    Path tempDir)
+	throws IOException
+    {
+	// Enforce preconditions
+	if (runSize < 1 || runSize > Integer.MAX_VALUE / 4)
+	    throw new IllegalArgumentException("Illegal run size: " + runSize);
+	if (fanIn < 2)
+	    throw new IllegalArgumentException("Illegal fan-in: " + fanIn);
+
+	long size = Files.size(input);
+	if (size % 4 != 0)
+	    throw new IllegalArgumentException("Input file length " + size + " is not a multiple of 4");
+	long n = size / 4;
+
+	// temporary run files that have been created and not yet deleted
+	Set<Path> temps = new HashSet<Path>();
+	try {
+	    List<Path> runs = formRuns(input, output, tempDir, n, runSize, useMergeSort, temps);
+
+	    // merge buffers share the memory of one run
+	    int bufferSize = Math.max(MIN_BUFFER, runSize / (fanIn+1));
+
+	    int pass = 1;
+	    while (runs.size() > 1) {
+		// bytes read and written by the merges of this pass
+		long [] bytes = new long[2];
+		List<Path> merged = new ArrayList<Path>();
+
+		for (int g=0; g<runs.size(); g+=fanIn) {
+		    List<Path> group = runs.subList(g, Math.min(g+fanIn, runs.size()));
+		    Path out = output;
+		    if (runs.size() > fanIn) {
+			out = Files.createTempFile(tempDir, "extsort", ".run");
+			temps.add(out);
+		    }
+
+		    mergeRuns(group, out, bufferSize, bytes);
+
+		    for (Path run : group) {
+			Files.delete(run);
+			temps.remove(run);
+		    }
+		    merged.add(out);
+		}
+
+		System.out.println("Pass " + pass + ": merged " + runs.size() + " runs into "
+				   + merged.size() + ", read " + bytes[0] + " bytes, wrote "
+				   + bytes[1] + " bytes");
+		runs = merged;
+		++pass;
+	    }
+	}
+	finally {
+	    // only left over if a pass failed; errors here would hide the original one
+	    for (Path run : temps) {
+		try {
+		    Files.deleteIfExists(run);
+		}
+		catch (IOException e) {
+		}
+	    }
+	}
+    }
+
+
+    /*
+     * Run formation pass: sorts the input in runs of runSize values and returns the list
+     * of run files.  A single run is written directly to the output file; every temporary
+     * run file is created in tempDir and added to temps as soon as it is created.
+     */
+    private static List<Path> formRuns(Path input, Path output, Path tempDir, long n, int runSize,
+				       boolean useMergeSort, Set<Path> temps)
+	throws IOException
+    {
+	long numRuns = (n + runSize - 1) / runSize;
+	List<Path> runs = new ArrayList<Path>();
+	long bytesRead = 0;
+	long bytesWritten = 0;
+
+	int [] A = new int[(int) Math.min(runSize, Math.max(n, 1))];
+	int [] B = useMergeSort ? new int[A.length] : null;
+	ByteBuffer buf = ByteBuffer.allocateDirect(4 * A.length);
+
+	try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+	    if (numRuns == 0) {
+		Files.write(output, new byte[0]);
+		runs.add(output);
+	    }
+
+	    for (long r=0; r<numRuns; ++r) {
+		// read the next run
+		buf.clear();
+		while (buf.hasRemaining() && in.read(buf) >= 0)
+		    ;
+		buf.flip();
+		bytesRead += buf.remaining();
+
+		int len = buf.remaining() / 4;
+		buf.asIntBuffer().get(A, 0, len);
+		int [] run = A;
+		if (len < A.length) {
+		    run = new int[len];
+		    System.arraycopy(A, 0, run, 0, len);
+		}
+
+		if (useMergeSort)
+		    Sorting.mergeSort(run, B);
+		else
+		    Sorting.quicksortImproved(run);
+
+		// write it out
+		Path out = output;
+		if (numRuns > 1) {
+		    out = Files.createTempFile(tempDir, "extsort", ".run");
+		    temps.add(out);
+		}
+		buf.clear();
+		buf.asIntBuffer().put(run, 0, len);
+		buf.limit(4 * len);
+		try (FileChannel ch = FileChannel.open(out, StandardOpenOption.WRITE,
+						       StandardOpenOption.CREATE,
+						       StandardOpenOption.TRUNCATE_EXISTING)) {
+		    while (buf.hasRemaining())
+			ch.write(buf);
+		}
+		bytesWritten += 4 * len;
+		runs.add(out);
+	    }
+	}
+
+	System.out.println("Pass 0: formed " + runs.size() + " sorted runs of up to " + runSize
+			   + " values, read " + bytesRead + " bytes, wrote " + bytesWritten + " bytes");
+	return runs;
+    }
+
+
+    /*
+     * Buffered reader for one sorted run during a merge
+     */
+    private static class RunReader {
+	private final FileChannel ch;
+	private final ByteBuffer buf;
+	private final IntBuffer ints;
+	private int pos, len;
+
+	/** current (smallest unmerged) value of the run, valid if hasValue is true */
+	int value;
+	boolean hasValue;
+
+	/** number of bytes read from the run so far */
+	long bytesRead;
+
+	RunReader(Path run, int bufferSize) throws IOException {
+	    ch = FileChannel.open(run, StandardOpenOption.READ);
+	    buf = ByteBuffer.allocateDirect(4 * bufferSize);
+	    ints = buf.asIntBuffer();
+	    advance();
+	}
+
+	/* moves to the next value of the run, refilling the buffer if necessary */
+	void advance() throws IOException {
+	    if (pos == len) {
+		buf.clear();
+		while (buf.hasRemaining() && ch.read(buf) >= 0)
+		    ;
+		bytesRead += buf.position();
+		len = buf.position() / 4;
+		pos = 0;
+		if (len == 0) {
+		    hasValue = false;
+		    return;
+		}
+	    }
+	    value = ints.get(pos);
+	    ++pos;
+	    hasValue = true;
+	}
+
+	void close() throws IOException {
+	    ch.close();
+	}
+    }
+
+
+    /*
+     * Merges the given sorted runs into the output file using a binary min-heap of run
+     * readers, and adds the number of bytes read from the runs to bytes[0] and the number
+     * written to bytes[1]
+     */
+    private static void mergeRuns(List<Path> group, Path output, int bufferSize, long [] bytes)
+	throws IOException
+    {
+	int k = group.size();
+	RunReader [] heap = new RunReader[k];
+	int size = 0;
+
+	try (FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE,
+						StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+	    try {
+		for (Path run : group) {
+		    RunReader r = new RunReader(run, bufferSize);
+		    if (r.hasValue) {
+			heap[size] = r;
+			++size;
+		    }
+		    else {
+			bytes[0] += r.bytesRead;
+			r.close();
+		    }
+		}
+
+		// BuildMinHeap on the current values of the runs
+		for (int i=(size >> 1) - 1; i>=0; --i)
+		    siftDown(heap, i, size);
+
+		ByteBuffer buf = ByteBuffer.allocateDirect(4 * bufferSize);
+		IntBuffer ints = buf.asIntBuffer();
+		int count = 0;
+
+		while (size > 0) {
+		    ints.put(count, heap[0].value);
+		    ++count;
+		    if (count == bufferSize) {
+			bytes[1] += flush(out, buf, count);
+			count = 0;
+		    }
+
+		    heap[0].advance();
+		    if (!heap[0].hasValue) {
+			bytes[0] += heap[0].bytesRead;
+			heap[0].close();
+			--size;
+			heap[0] = heap[size];
+			heap[size] = null;
+		    }
+		    siftDown(heap, 0, size);
+		}
+		bytes[1] += flush(out, buf, count);
+	    }
+	    finally {
+		for (int i=0; i<size; ++i)
+		    heap[i].close();
+	    }
+	}
+    }
+
+
+    /*
+     * MinHeapify(heap,i) on the first size entries of heap, keyed by current value
+     */
+    private static void siftDown(RunReader [] heap, int i, int size) {
+	while (true) {
+	    int l = (i << 1) + 1;
+	    int r = l + 1;
+	    int smallest = i;
+	    if (l < size && heap[l].value < heap[smallest].value)
+		smallest = l;
+	    if (r < size && heap[r].value < heap[smallest].value)
+		smallest = r;
+	    if (smallest == i)
+		return;
+
+	    RunReader tmp = heap[i];
+	    heap[i] = heap[smallest];
+	    heap[smallest] = tmp;
+	    i = smallest;
+	}
+    }
+
+
+    /*
+     * Writes the first count values in buf to the channel and returns the number of bytes
+     */
+    private static long flush(FileChannel out, ByteBuffer buf, int count) throws IOException {
+	buf.clear();
+	buf.limit(4 * count);
+	while (buf.hasRemaining())
+	    out.write(buf);
+	return 4L * count;
+    }
+
+
+    /*
+     * Writes n random int values to the given file, for testing
+     */
+    private static void generate(Path file, long n) throws IOException {
+	ByteBuffer buf = ByteBuffer.allocateDirect(4 * 65536);
+	try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE,
+					       StandardOpenOption.CREATE,
+					       StandardOpenOption.TRUNCATE_EXISTING)) {
+	    for (long i=0; i<n; i+=65536) {
+		int len = (int) Math.min(65536, n-i);
+		buf.clear();
+		buf.asIntBuffer().put(Sorting.randomArray(len));
+		buf.limit(4 * len);
+		while (buf.hasRemaining())
+		    ch.write(buf);
+	    }
+	}
+    }
+
+
+    /*
+     * Returns true if the int values in the given file are in sorted order
+     */
+    private static boolean isSorted(Path file) throws IOException {
+	RunReader r = new RunReader(file, 65536);
+	try {
+	    int prev = Integer.MIN_VALUE;
+	    while (r.hasValue) {
+		if (r.value < prev)
+		    return false;
+		prev = r.value;
+		r.advance();
+	    }
+	    return true;
+	}
+	finally {
+	    r.close();
+	}
+    }
+
+
+    /**
+     *  Prints a message describing proper usage with respect to required
+     *  command line parameters and exits.
+     */
+    public static void usage()
+    {
+	System.out.println("Usage: java ExternalSort input output runSize fanIn [quick|merge [tempDir]]");
+	System.out.println("       java ExternalSort -generate file numValues");
+	System.out.println("  input     - binary file of big-endian int values");
+	System.out.println("  output    - file to receive the sorted values");
+	System.out.println("  runSize   - number of values sorted in memory at a time");
+	System.out.println("  fanIn     - maximum number of runs merged at a time");
+	System.out.println("  quick|merge - sort runs using improved quicksort (default) or merge sort");
+	System.out.println("  tempDir   - directory for the temporary run files (default: that of output)");
+	System.out.println("  numValues - number of random values to write to file");
+	System.exit(1);
+    }
+
+
+    /**
+     *  Sorts a binary file of int values, or generates a file of random values.
+     */
+    public static void main(String[] args) throws IOException
+    {
+	if (args.length == 3 && args[0].equals("-generate")) {
+	    generate(Paths.get(args[1]), Long.parseLong(args[2]));
+	    return;
+	}
+
+	if (args.length < 4 || args.length > 6)  usage();
+
+	boolean useMergeSort = false;
+	if (args.length >= 5) {
+	    if (args[4].equals("merge"))
+		useMergeSort = true;
+	    else if (!args[4].equals("quick"))
+		usage();
+	}
+
+	Path output = Paths.get(args[1]);
+	Path tempDir = args.length == 6 ? Paths.get(args[5]) : output.toAbsolutePath().getParent();
+	sort(Paths.get(args[0]), output, parseInt(args[2]), parseInt(args[3]), useMergeSort, tempDir);
+
+	if (!isSorted(output))
+	    System.out.println("ERROR:  output file " + output + " is not sorted");
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.lang.IllegalArgumentException;
+
+/**
+ * Sorts a binary file of big-endian int values in place through memory-mapped buffers, so
+ * that files which fit in the page cache but not in the Java heap can be sorted without
+ * copying the data onto the heap and back.  Because a single mapping is limited to 2 GB,
+ * the file is mapped as a sequence of 1 GB segments and entries are addressed by
+ * <code>long</code> indices.  Heap sort and an introsort variant of the improved quicksort
+ * from <code>Sorting</code> are provided.
+ *
+ * @version 1.0
+ */
+public class MappedSort {
+
+    /** each mapped segment holds 2^SEGMENT_SHIFT int values (1 GB) */
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+
+    /*
+     * An array of int values stored in a file and accessed through memory-mapped segments
+     */
+    private static class MappedIntArray {
+	private final MappedByteBuffer [] maps;
+	private final IntBuffer [] segments;
+	final long length;
+
+	MappedIntArray(FileChannel ch, long length) throws IOException {
+	    this.length = length;
+	    int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+	    maps = new MappedByteBuffer[count];
+	    segments = new IntBuffer[count];
+	    for (int k=0; k<count; ++k) {
+		long first = (long) k << SEGMENT_SHIFT;
+		long size = Math.min(SEGMENT_MASK + 1, length - first);
+		maps[k] = ch.map(FileChannel.MapMode.READ_WRITE, 4 * first, 4 * size);
+		segments[k] = maps[k].asIntBuffer();
+	    }
+	}
+
+	int get(long i) {
+	    return segments[(int) (i >>> SEGMENT_SHIFT)].get((int) (i & SEGMENT_MASK));
+	}
+
+	void set(long i, int v) {
+	    segments[(int) (i >>> SEGMENT_SHIFT)].put((int) (i & SEGMENT_MASK), v);
+	}
+
+	void swap(long i, long j) {
+	    int tmp = get(i);
+	    set(i, get(j));
+	    set(j, tmp);
+	}
+
+	/* writes all modified pages back to the file */
+	void force() {
+	    for (MappedByteBuffer map : maps)
+		map.force();
+	}
+    }
+
+
+    /*
+     * Maps the given file, sorts it with heap sort or quicksort, and flushes it to disk
+     */
+    private static void sort(Path file, boolean useHeapSort) throws IOException
+    {
+	long size = Files.size(file);
+	if (size % 4 != 0)
+	    throw new IllegalArgumentException("File length " + size + " is not a multiple of 4");
+
+	try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ,
+					       StandardOpenOption.WRITE)) {
+	    MappedIntArray A = new MappedIntArray(ch, size / 4);
+	    if (useHeapSort)
+		hsort(A, 0, A.length);
+	    else {
+		// recursion depth limit 2 floor(lg n)
+		int depth = A.length > 1 ? 2 * (63 - Long.numberOfLeadingZeros(A.length)) : 0;
+		qsortIntro(A, 0, A.length-1, depth);
+		isort(A, 0, A.length-1);
+	    }
+	    A.force();
+	}
+    }
+
+
+    /**
+     * Sorts the int values in the given file in place using heap sort on the mapped file.
+     *
+     * @param  file binary file of big-endian int values
+     * @throws IllegalArgumentException if the length of the file is not a multiple of 4
+     * @throws IOException if the file cannot be mapped
+     */
+    public static void heapSort(Path file) throws IOException
+    {
+	sort(file, true);
+    }
+
+
+    /**
+     * Sorts the int values in the given file in place using introsort with median-of-3
+     * pivot selection and early abort: subarrays that exceed a recursion depth of
+     * 2 floor(lg n) are heap sorted, subarrays of fewer than 128 entries are left unsorted,
+     * and the file is finished by an insertion sort pass.
+     *
+     * @param  file binary file of big-endian int values
+     * @throws IllegalArgumentException if the length of the file is not a multiple of 4
+     * @throws IOException if the file cannot be mapped
+     */
+    public static void quickSort(Path file) throws IOException
+    {
+	sort(file, false);
+    }
+
+
+    /*
+     * Heap sort on the n entries A[p..p+n-1]
+     */
+    private static void hsort(MappedIntArray A, long p, long n) {
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (long i=(n >> 1) - 1; i>=0; --i)
+	    siftDown(A, p, i, n);
+
+	for (long i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i
+	    A.swap(p, p+i);
+
+	    // MaxHeapify(A,0) to re-establish max heap of size i
+	    siftDown(A, p, 0, i);
+	}
+    }
+
+
+    /*
+     * MaxHeapify(A,j) on the heap of size n stored in A[p..p+n-1]
+     */
+    private static void siftDown(MappedIntArray A, long p, long j, long n) {
+	int x = A.get(p+j);
+	while (true) {
+	    long l = (j << 1) + 1;
+	    if (l >= n)
+		break;
+	    long largest = l;
+	    int y = A.get(p+l);
+	    if (l+1 < n) {
+		int z = A.get(p+l+1);
+		if (z > y) {
+		    largest = l+1;
+		    y = z;
+		}
+	    }
+	    if (y <= x)
+		break;
+	    A.set(p+j, y);
+	    j = largest;
+	}
+	A.set(p+j, x);
+    }
+
+
+    /*
+     * recursive worker function for introsort with median-of-3 partitioning and early abort
+     */
+    private static void qsortIntro(MappedIntArray A, long p, long r, int depth) {
+	while (r-p+1 >= 128) {
+	    if (depth == 0) {
+		hsort(A, p, r-p+1);
+		return;
+	    }
+	    --depth;
+
+	    // deterministic partitioning --- median of 3 strategy
+	    long mid = (r + p) >>> 1;
+	    if (A.get(p) > A.get(mid))
+		A.swap(p, mid);
+	    if (A.get(mid) > A.get(r))
+		A.swap(mid, r);
+	    if (A.get(p) > A.get(mid))
+		A.swap(p, mid);
+	    A.swap(mid, r-1);
+
+	    int x = A.get(r-1);
+	    long i = p;
+	    for (long j=p+1; j<r-1; ++j) {
+		int v = A.get(j);
+		if (v <= x) {
+		    ++i;
+		    A.set(j, A.get(i));
+		    A.set(i, v);
+		}
+	    }
+	    A.swap(i+1, r-1);
+
+	    // recurse into the smaller side to bound the stack depth
+	    if (i-p < r-i-2) {
+		qsortIntro(A, p, i, depth);
+		p = i+2;
+	    }
+	    else {
+		qsortIntro(A, i+2, r, depth);
+		r = i;
+	    }
+	}
+    }
+
+
+    /*
+     * Sorts A[p..r] using insertion sort
+     */
+    private static void isort(MappedIntArray A, long p, long r) {
+	for (long i=p+1; i<=r; ++i) {
+	    long j = i;
+	    int tmp = A.get(i);
+	    while (j > p && tmp < A.get(j-1)) {
+		A.set(j, A.get(j-1));
+		--j;
+	    }
+	    A.set(j, tmp);
+	}
+    }
+
+
+    /**
+     *  Prints a message describing proper usage with respect to required
+     *  command line parameters and exits.
+     */
+    public static void usage()
+    {
+	System.out.println("Usage: java MappedSort file [heap|quick]");
+	System.out.println("  file       - binary file of big-endian int values, sorted in place");
+	System.out.println("  heap|quick - sort using heap sort or quicksort (default)");
+	System.exit(1);
+    }
+
+
+    /**
+     *  Sorts a binary file of int values in place and reports the time taken.
+     */
+    public static void main(String[] args) throws IOException
+    {
+	if (args.length != 1 && args.length != 2)  usage();
+
+	boolean useHeapSort = false;
+	if (args.length == 2) {
+	    if (args[1].equals("heap"))
+		useHeapSort = true;
+	    else if (!args[1].equals("quick"))
+		usage();
+	}
+
+	Path file = Paths.get(args[0]);
+	long start = System.nanoTime();
+	sort(file, useHeapSort);
+	long elapsed = System.nanoTime() - start;
+
+	System.out.println("Sorted " + Files.size(file) / 4 + " values using "
+			   + (useHeapSort ? "heap sort" : "quicksort") + " in "
+			   + elapsed / 1000000 + " ms");
+    }
+}
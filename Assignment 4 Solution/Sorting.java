@@ -1,12 +1,24 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
 import static java.lang.Integer.parseInt;
 import static java.lang.Math.max;
 import static java.util.Arrays.sort;
 import java.lang.IllegalArgumentException;
 
 /**
- * The Class contains implementations of insertion sort, merge sort, and four versions of
- * quicksort (including Java's sort function)
+ * The Class contains implementations of insertion sort, merge sort (top-down, bottom-up,
+ * natural, in-place and parallel), heap sort (binary and 4-ary), quicksort (the basic,
+ * improved, introsort, parallel, 3-way, dual-pivot, block, sorting network and Vector API
+ * versions, and Java's sort function), and LSD radix, American flag and counting sort,
+ * along with selection, top-k, partial sort and argsort
 
  * @author  M. Jacobson
  * @version 1.0
@@ -67,6 +79,77 @@ public class Sorting {
 
 
 
+    /**
+     * Test two long arrays for equality.
+     * @return true if A and B are equal
+     * @param  A array of longs (not null)
+     * @param  B array of longs (not null)
+     * @throws IllegalArgumentException if A or B is null      */
+    public static boolean testArrays(long [] A, long [] B) {
+        if (A == null)
+            throw new IllegalArgumentException("Input array A must not be null");
+        if (B == null)
+            throw new IllegalArgumentException("Input array B must not be null");
+
+        if (A.length != B.length)
+             return false;
+
+        for (int i=0; i<A.length; ++i)
+            if (A[i] != B[i])
+                return false;
+
+        return true;
+    }
+
+
+    /**
+     * Test two short arrays for equality.
+     * @return true if A and B are equal
+     * @param  A array of shorts (not null)
+     * @param  B array of shorts (not null)
+     * @throws IllegalArgumentException if A or B is null      */
+    public static boolean testArrays(short [] A, short [] B) {
+        if (A == null)
+            throw new IllegalArgumentException("Input array A must not be null");
+        if (B == null)
+            throw new IllegalArgumentException("Input array B must not be null");
+
+        if (A.length != B.length)
+             return false;
+
+        for (int i=0; i<A.length; ++i)
+            if (A[i] != B[i])
+                return false;
+
+        return true;
+    }
+
+
+    /**
+     * Test two double arrays for equality, comparing entries with
+     * <code>Double.compare</code>: NaN equals NaN, and -0.0 differs from 0.0.
+     * @return true if A and B are equal
+     * @param  A array of doubles (not null)
+     * @param  B array of doubles (not null)
+     * @throws IllegalArgumentException if A or B is null      */
+    public static boolean testArrays(double [] A, double [] B) {
+        if (A == null)
+            throw new IllegalArgumentException("Input array A must not be null");
+        if (B == null)
+            throw new IllegalArgumentException("Input array B must not be null");
+
+        if (A.length != B.length)
+             return false;
+
+        for (int i=0; i<A.length; ++i)
+            if (Double.compare(A[i],B[i]) != 0)
+                return false;
+
+        return true;
+    }
+
+
+
     /**
      * Prints the contents of the input array.
      *
@@ -85,57 +168,2675 @@ public class Sorting {
 
 
 
+    /*
+     * Per-thread scratch array: the largest one handed out by scratchArray on this thread
+     */
+    private static final ThreadLocal<int []> SCRATCH = new ThreadLocal<int []>();
+
+
+    /*
+     * Fixed-size tables used by radixSort(A,B) and naturalMergeSort(A,B), kept per thread
+     * so that those sorts allocate nothing
+     */
+    private static class Tables {
+	/** byte value counts of radix sort */
+	final int [] count = new int[257];
+
+	/** run stack of natural merge sort; run lengths grow faster than Fibonacci numbers */
+	final int [] runStart = new int[64];
+	final int [] runLen = new int[64];
+    }
+
+    private static final ThreadLocal<Tables> TABLES = new ThreadLocal<Tables>() {
+	protected Tables initialValue() {
+	    return new Tables();
+	}
+    };
+
+
+    /**
+     * Returns a scratch array with at least n entries, suitable for the sorting functions
+     * that accept a caller-supplied scratch array.  Each thread keeps only the largest
+     * array it has been handed: it is returned whenever it is long enough, and replaced by
+     * one of the next power of two at or above n otherwise, so repeated calls allocate
+     * nothing once the largest size has been seen.  Its contents are arbitrary, and it
+     * must not be used by two sorts at the same time on one thread.
+     *
+     * @return array containing at least n int values
+     * @param  n minimum size of the scratch array
+     * @throws IllegalArgumentException if n < 0
+     */
+    public static int [] scratchArray(int n)
+    {
+	if (n < 0)
+	    throw new IllegalArgumentException("Negative array size: " + n);
+
+	int [] B = SCRATCH.get();
+	if (B == null || B.length < n) {
+	    // sizes above 2^30 cannot be rounded up to a power of two
+	    int size = n <= 1 ? 1 : n > (1 << 30) ? n : Integer.highestOneBit(n-1) << 1;
+	    B = new int[size];
+	    SCRATCH.set(B);
+	}
+	return B;
+    }
+
+
+    /*
+     * Enforces the precondition of the sorting functions taking a scratch array B for A
+     */
+    private static void checkScratch(int [] A, int [] B) {
+	if (B == null)
+	    throw new IllegalArgumentException("Scratch array B must not be null");
+	if (B.length < A.length)
+	    throw new IllegalArgumentException("Scratch array B has " + B.length
+					       + " entries, need " + A.length);
+    }
+
+
+
+    /** largest subarray that can be sorted by a sorting network (see NETWORKS) */
+    private static final int NETWORK_MAX = 16;
+
+    /** file holding the calibrated cutoffs, written by <code>SortingCalibration</code> */
+    static final String CUTOFF_FILE = System.getProperty("sorting.properties", "sorting.properties");
+
+    /*
+     * Cutoffs read from CUTOFF_FILE when this class is loaded (the defaults are used for
+     * missing or invalid entries).  They are final: SortingCalibration tries each candidate
+     * value in a fresh JVM pointed at its own properties file.
+     *
+     *   quicksortCutoff - the early-abort quicksorts leave subarrays with fewer entries
+     *                     to the final insertion sort pass (default 128): quicksortImproved
+     *                     for every element type, its parallel, introsort and block
+     *                     variants, quicksort3Way and dualPivotQuicksort
+     *   networkCutoff   - networkQuicksort sorts subarrays with at most this many entries
+     *                     by a sorting network (default and maximum 16)
+     *   mergesortCutoff - merge sort sorts subarrays with at most this many entries by
+     *                     insertion sort (default 1, i.e. no cutoff)
+     */
+    static final int quicksortCutoff;
+    static final int networkCutoff;
+    static final int mergesortCutoff;
+
+    static {
+	Properties cutoffs = new Properties();
+	try (Reader in = Files.newBufferedReader(Paths.get(CUTOFF_FILE))) {
+	    cutoffs.load(in);
+	}
+	catch (IOException | InvalidPathException e) {
+	    // no calibration file: use the defaults
+	}
+
+	quicksortCutoff = readCutoff(cutoffs, "quicksort.cutoff", 128, 8, 1 << 20);
+	networkCutoff = readCutoff(cutoffs, "network.cutoff", NETWORK_MAX, 2, NETWORK_MAX);
+	mergesortCutoff = readCutoff(cutoffs, "mergesort.cutoff", 1, 1, 1 << 20);
+    }
+
+
+    /*
+     * Returns the value of the given key if it is an integer in [min,max], and otherwise def
+     */
+    private static int readCutoff(Properties cutoffs, String key, int def, int min, int max) {
+	String value = cutoffs.getProperty(key);
+	if (value == null)
+	    return def;
+
+	try {
+	    int cutoff = parseInt(value.trim());
+	    return cutoff >= min && cutoff <= max ? cutoff : def;
+	}
+	catch (NumberFormatException e) {
+	    return def;
+	}
+    }
+
+
+
+
+    /**
+     * Sorts the input array using Java's implementation of quicksort
+     *
+     * @param A integer array
+     */
+
+    public static void javaSort(int [] A)
+    {
+	sort(A);
+    }
+
+
+
+    /**
+     * Sorts the input array using the insertion sort algorithm
+     *
+     * @param A integer array
+     */
+
+    public static void insertionSort(int [] A)
+    {
+	for (int i=1; i<A.length; ++i) {
+	    int j = i;
+	    int tmp = A[i];
+	    while (j > 0 && tmp < A[j-1]) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+    /*
+     * Sorts A[p..r] using insertion sort
+     */
+    private static void isort(int [] A, int p, int r) {
+	for (int i=p+1; i<=r; ++i) {
+	    int j = i;
+	    int tmp = A[i];
+	    while (j > p && tmp < A[j-1]) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+
+    /**
+     * Sorts the input array using merge sort.  Subarrays of at most the calibrated merge sort
+     * cutoff (by default 1) entries are sorted by insertion sort instead of being split.
+     *
+     * @param A integer array
+     */
+    public static void  mergeSort(int [] A)
+    {
+	mergeSort(A,new int[A.length]);
+    }
+
+
+    /**
+     * Sorts the input array using the same merge sort as <code>mergeSort(A)</code>, but
+     * uses the caller-supplied array B as scratch space instead of allocating one.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void mergeSort(int [] A, int [] B)
+    {
+	checkScratch(A,B);
+	msort(A,0,A.length-1,B);
+    }
+
+
+    /*
+     * Recursive worker function for merge sort
+     */
+    private static void msort(int [] A, int l, int r, int [] B) {
+	if (r-l+1 <= mergesortCutoff)
+	    isort(A,l,r);
+	else {
+	    int mid = (r+l) / 2;
+	    msort(A,l,mid,B);
+	    msort(A,mid+1,r,B);
+
+	    // merge into array B, copy back to A
+	    merge(A,l,mid,mid+1,r,B,l);
+
+	    for (int j=l; j<=r; ++j)
+		A[j] = B[j];
+	}
+    }
+
+
+    /*
+     * Merges the sorted subarrays A[l1..r1] and A[l2..r2] into B, starting at index k.
+     * Entries of the first subarray are placed before equal entries of the second.
+     */
+    private static void merge(int [] A, int l1, int r1, int l2, int r2, int [] B, int k) {
+	int i1 = l1;
+	int i2 = l2;
+	int j = k;
+	while (i1 <= r1 && i2 <= r2) {
+	    if (A[i1] <= A[i2]) {
+		B[j] = A[i1];
+		++i1;
+	    }
+	    else {
+		B[j] = A[i2];
+		++i2;
+	    }
+	    ++j;
+	}
+
+	while (i1 <= r1) {
+	    B[j] = A[i1];
+	    ++i1;
+	    ++j;
+	}
+
+	while (i2 <= r2) {
+	    B[j] = A[i2];
+	    ++i2;
+	    ++j;
+	}
+    }
+
+
+
+    /*
+     * Subarrays smaller than this are sorted, merged and copied sequentially by the
+     * parallel merge sort
+     */
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+
+    /**
+     * Sorts the input array using merge sort, sorting both halves and merging them in
+     * parallel on the common fork/join pool.  Subarrays of fewer than
+     * <code>PARALLEL_THRESHOLD</code> elements are handled by the sequential merge sort, and
+     * all tasks share a single scratch array, so the result is identical to that of
+     * <code>mergeSort</code>.
+     *
+     * @param A integer array
+     */
+    public static void parallelMergeSort(int [] A)
+    {
+	parallelMergeSort(A,new int[A.length]);
+    }
+
+
+    /**
+     * Sorts the input array using the same parallel merge sort as
+     * <code>parallelMergeSort(A)</code>, but uses the caller-supplied array B as scratch
+     * space instead of allocating one.  The fork/join tasks are still allocated.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void parallelMergeSort(int [] A, int [] B)
+    {
+	checkScratch(A,B);
+	ForkJoinPool.commonPool().invoke(new MergeSortTask(A,0,A.length-1,B));
+    }
+
+
+    /*
+     * Fork/join task sorting A[l..r] using the scratch space B[l..r]
+     */
+    private static class MergeSortTask extends RecursiveAction {
+	private final int [] A, B;
+	private final int l, r;
+
+	MergeSortTask(int [] A, int l, int r, int [] B) {
+	    this.A = A;
+	    this.l = l;
+	    this.r = r;
+	    this.B = B;
+	}
+
+	protected void compute() {
+	    if (r-l+1 < PARALLEL_THRESHOLD) {
+		msort(A,l,r,B);
+		return;
+	    }
+
+	    int mid = (r+l) / 2;
+	    invokeAll(new MergeSortTask(A,l,mid,B), new MergeSortTask(A,mid+1,r,B));
+
+	    // merge into array B, copy back to A
+	    new MergeTask(A,l,mid,mid+1,r,B,l).compute();
+	    new CopyTask(B,A,l,r).compute();
+	}
+    }
+
+
+    /*
+     * Fork/join task merging the sorted subarrays A[l1..r1] and A[l2..r2] into B, starting
+     * at index k.  The larger subarray is split at its middle element and the position of
+     * that element in the other subarray is found by binary search, so that both halves
+     * can be merged independently without changing the result.
+     */
+    private static class MergeTask extends RecursiveAction {
+	private final int [] A, B;
+	private final int l1, r1, l2, r2, k;
+
+	MergeTask(int [] A, int l1, int r1, int l2, int r2, int [] B, int k) {
+	    this.A = A;
+	    this.l1 = l1;
+	    this.r1 = r1;
+	    this.l2 = l2;
+	    this.r2 = r2;
+	    this.B = B;
+	    this.k = k;
+	}
+
+	protected void compute() {
+	    int n1 = r1-l1+1;
+	    int n2 = r2-l2+1;
+	    if (n1+n2 < PARALLEL_THRESHOLD) {
+		merge(A,l1,r1,l2,r2,B,k);
+		return;
+	    }
+
+	    int m1, m2;
+	    if (n1 >= n2) {
+		// first entry of A[l2..r2] that must follow A[m1]
+		m1 = (l1+r1) >>> 1;
+		m2 = l2;
+		int hi = r2+1;
+		while (m2 < hi) {
+		    int m = (m2+hi) >>> 1;
+		    if (A[m] < A[m1])
+			m2 = m+1;
+		    else
+			hi = m;
+		}
+	    }
+	    else {
+		// first entry of A[l1..r1] that must follow A[m2]
+		m2 = (l2+r2) >>> 1;
+		m1 = l1;
+		int hi = r1+1;
+		while (m1 < hi) {
+		    int m = (m1+hi) >>> 1;
+		    if (A[m] <= A[m2])
+			m1 = m+1;
+		    else
+			hi = m;
+		}
+	    }
+
+	    invokeAll(new MergeTask(A,l1,m1-1,l2,m2-1,B,k),
+		      new MergeTask(A,m1,r1,m2,r2,B,k+(m1-l1)+(m2-l2)));
+	}
+    }
+
+
+    /*
+     * Fork/join task copying src[l..r] to dst[l..r]
+     */
+    private static class CopyTask extends RecursiveAction {
+	private final int [] src, dst;
+	private final int l, r;
+
+	CopyTask(int [] src, int [] dst, int l, int r) {
+	    this.src = src;
+	    this.dst = dst;
+	    this.l = l;
+	    this.r = r;
+	}
+
+	protected void compute() {
+	    if (r-l+1 < PARALLEL_THRESHOLD) {
+		System.arraycopy(src,l,dst,l,r-l+1);
+		return;
+	    }
+
+	    int mid = (r+l) / 2;
+	    invokeAll(new CopyTask(src,dst,l,mid), new CopyTask(src,dst,mid+1,r));
+	}
+    }
+
+
+
+    /**
+     * Sorts the input array using a natural merge sort in the style of TimSort.  The array
+     * is scanned for maximal ascending runs and strictly descending runs (which are
+     * reversed in place); runs shorter than a minimum length between 32 and 64 are extended
+     * with insertion sort.  Runs are pushed on a stack and adjacent runs are merged whenever
+     * the lengths of the top three no longer decrease like the Fibonacci numbers, which
+     * keeps the stack small and the merges balanced.  A sorted or reverse-sorted array is
+     * a single run and is sorted in linear time.
+     *
+     * @param A integer array
+     */
+    public static void naturalMergeSort(int [] A)
+    {
+	naturalMergeSort(A,new int[A.length]);
+    }
+
+
+    /**
+     * Sorts the input array using the same natural merge sort as
+     * <code>naturalMergeSort(A)</code>, but uses the caller-supplied array B as scratch
+     * space instead of allocating one.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void naturalMergeSort(int [] A, int [] B)
+    {
+	checkScratch(A,B);
+	int n = A.length;
+	if (n < 2)
+	    return;
+
+	// minimum run length: n / 2^k rounded up, for the k giving a value in [32,64)
+	int minRun = n;
+	int rest = 0;
+	while (minRun >= 64) {
+	    rest |= minRun & 1;
+	    minRun >>= 1;
+	}
+	minRun += rest;
+
+	Tables tables = TABLES.get();
+	int [] runStart = tables.runStart;
+	int [] runLen = tables.runLen;
+	int top = 0;
+
+	int lo = 0;
+	while (lo < n) {
+	    // find the run starting at lo, A[lo..hi-1]
+	    int hi = lo+1;
+	    if (hi < n) {
+		if (A[hi] < A[lo]) {
+		    while (hi < n && A[hi] < A[hi-1])
+			++hi;
+		    for (int i=lo, j=hi-1; i<j; ++i, --j) {
+			int tmp = A[i];
+			A[i] = A[j];
+			A[j] = tmp;
+		    }
+		}
+		else {
+		    while (hi < n && A[hi] >= A[hi-1])
+			++hi;
+		}
+	    }
+
+	    if (hi-lo < minRun) {
+		hi = Math.min(n, lo+minRun);
+		isort(A,lo,hi-1);
+	    }
+
+	    runStart[top] = lo;
+	    runLen[top] = hi-lo;
+	    ++top;
+
+	    // restore runLen[k-1] > runLen[k] + runLen[k+1] and runLen[k] > runLen[k+1]
+	    while (top > 1) {
+		int k = top-2;
+		if ((k > 0 && runLen[k-1] <= runLen[k] + runLen[k+1])
+		    || (k > 1 && runLen[k-2] <= runLen[k-1] + runLen[k])) {
+		    if (runLen[k-1] < runLen[k+1])
+			--k;
+		}
+		else if (runLen[k] > runLen[k+1])
+		    break;
+		top = mergeRuns(A,runStart,runLen,top,k,B);
+	    }
+
+	    lo = hi;
+	}
+
+	while (top > 1) {
+	    int k = top-2;
+	    if (k > 0 && runLen[k-1] < runLen[k+1])
+		--k;
+	    top = mergeRuns(A,runStart,runLen,top,k,B);
+	}
+    }
+
+
+    /*
+     * Merges run k and run k+1 of the run stack of natural merge sort, using B as
+     * scratch space, and returns the new size of the stack
+     */
+    private static int mergeRuns(int [] A, int [] runStart, int [] runLen, int top, int k, int [] B) {
+	int l = runStart[k];
+	int mid = l + runLen[k] - 1;
+	int r = mid + runLen[k+1];
+
+	// nothing to do if the two runs are already in order
+	if (A[mid] > A[mid+1]) {
+	    merge(A,l,mid,mid+1,r,B,l);
+	    System.arraycopy(B,l,A,l,r-l+1);
+	}
+
+	runLen[k] += runLen[k+1];
+	for (int i=k+1; i<top-1; ++i) {
+	    runStart[i] = runStart[i+1];
+	    runLen[i] = runLen[i+1];
+	}
+	return top-1;
+    }
+
+
+
+    /**
+     * Sorts the input array using an iterative, bottom-up merge sort.  Blocks of 32 entries
+     * are first sorted with insertion sort; each pass then merges pairs of adjacent sorted
+     * blocks of the current width from one array into the other, doubling the width.  The
+     * input array and a single scratch array swap roles after every pass, so entries are
+     * not copied back after each merge, and at most one copy is made at the end.
+     *
+     * @param A integer array
+     */
+    public static void bottomUpMergeSort(int [] A)
+    {
+	bottomUpMergeSort(A,new int[A.length]);
+    }
+
+
+    /**
+     * Sorts the input array using the same bottom-up merge sort as
+     * <code>bottomUpMergeSort(A)</code>, but uses the caller-supplied array B as scratch
+     * space instead of allocating one.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void bottomUpMergeSort(int [] A, int [] B)
+    {
+	checkScratch(A,B);
+	int n = A.length;
+
+	// block bounds are computed in long arithmetic, since they can pass 2^31-1 when
+	// n > 2^30
+	for (long l=0; l<n; l+=32)
+	    isort(A,(int) l,(int) Math.min(l+32,n)-1);
+	if (n <= 32)
+	    return;
+
+	int [] src = A;
+	int [] dst = B;
+	for (long width=32; width<n; width*=2) {
+	    for (long l=0; l<n; l+=2*width) {
+		int mid = (int) Math.min(l+width,n) - 1;
+		int r = (int) Math.min(l+2*width,n) - 1;
+		merge(src,(int) l,mid,mid+1,r,dst,(int) l);
+	    }
+
+	    int [] tmp = src;
+	    src = dst;
+	    dst = tmp;
+	}
+
+	if (src != A)
+	    System.arraycopy(src,0,A,0,n);
+    }
+
+
+
+    /**
+     * Sorts the input array using a stable, in-place merge sort that needs only a constant
+     * amount of auxiliary memory (apart from O(log n) recursion depth).  Blocks of 32
+     * entries are sorted with insertion sort and then merged bottom-up as in
+     * <code>bottomUpMergeSort</code>, but each merge is done without a scratch array: the
+     * longer run is split at its middle entry, the position of that entry in the other run
+     * is found by binary search, the two middle pieces are exchanged by a rotation, and the
+     * two halves are merged recursively.  The running time is O(n log^2 n).
+     *
+     * @param A integer array
+     */
+    public static void inPlaceMergeSort(int [] A)
+    {
+	int n = A.length;
+
+	// block bounds are computed in long arithmetic, since they can pass 2^31-1 when
+	// n > 2^30
+	for (long l=0; l<n; l+=32)
+	    isort(A,(int) l,(int) Math.min(l+32,n)-1);
+
+	for (long width=32; width<n; width*=2) {
+	    for (long l=0; l<n-width; l+=2*width) {
+		int r = (int) Math.min(l+2*width,n);
+		mergeInPlace(A,(int) l,(int) (l+width),r);
+	    }
+	}
+    }
+
+
+    /*
+     * Stably merges the sorted runs A[lo..mid-1] and A[mid..hi-1] without a scratch array
+     */
+    private static void mergeInPlace(int [] A, int lo, int mid, int hi) {
+	if (lo >= mid || mid >= hi || A[mid-1] <= A[mid])
+	    return;
+
+	if (hi-lo == 2) {
+	    int tmp = A[lo];
+	    A[lo] = A[mid];
+	    A[mid] = tmp;
+	    return;
+	}
+
+	int cut1, cut2;
+	if (mid-lo >= hi-mid) {
+	    // first entry of A[mid..hi-1] that must follow A[cut1]
+	    cut1 = (lo+mid) >>> 1;
+	    cut2 = mid;
+	    int top = hi;
+	    while (cut2 < top) {
+		int m = (cut2+top) >>> 1;
+		if (A[m] < A[cut1])
+		    cut2 = m+1;
+		else
+		    top = m;
+	    }
+	}
+	else {
+	    // first entry of A[lo..mid-1] that must follow A[cut2]
+	    cut2 = (mid+hi) >>> 1;
+	    cut1 = lo;
+	    int top = mid;
+	    while (cut1 < top) {
+		int m = (cut1+top) >>> 1;
+		if (A[m] <= A[cut2])
+		    cut1 = m+1;
+		else
+		    top = m;
+	    }
+	}
+
+	// exchange A[cut1..mid-1] and A[mid..cut2-1] by reversing both, then the whole
+	reverse(A,cut1,mid-1);
+	reverse(A,mid,cut2-1);
+	reverse(A,cut1,cut2-1);
+
+	int newMid = cut1 + (cut2-mid);
+	mergeInPlace(A,lo,cut1,newMid);
+	mergeInPlace(A,newMid,cut2,hi);
+    }
+
+
+    /*
+     * Reverses A[l..r]
+     */
+    private static void reverse(int [] A, int l, int r) {
+	while (l < r) {
+	    int tmp = A[l];
+	    A[l] = A[r];
+	    A[r] = tmp;
+	    ++l;
+	    --r;
+	}
+    }
+
+
+
+
+    /**
+     * Sorts the input array using heap sort
+     *
+     * @param A integer array
+     */
+    public static void heapSort(int [] A)
+    {
+	hsort(A,0,A.length);
+    }
+
+
+    /*
+     * Worker function for heap sort: sorts the n entries A[p..p+n-1]
+     */
+    private static void hsort(int [] A, int p, int n) {
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (int i=(n >> 1) - 1; i>=0; --i)
+	    siftDown(A,p,i,n);
+
+	sortHeap(A,p,n);
+    }
+
+
+    /*
+     * Sorts the max heap of size n stored in A[p..p+n-1] into increasing order
+     */
+    private static void sortHeap(int [] A, int p, int n) {
+	for (int i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i
+	    int temp = A[p];
+	    A[p] = A[p+i];
+	    A[p+i] = temp;
+
+	    // MaxHeapify(A,0) to re-establish max heap of size i
+	    siftDown(A,p,0,i);
+	}
+    }
+
+
+    /*
+     * MaxHeapify(A,j) on the heap of size n stored in A[p..p+n-1]
+     */
+    private static void siftDown(int [] A, int p, int j, int n) {
+	int x = A[p+j];
+	while (true) {
+	    int l = (j << 1) + 1;
+	    if (l >= n)
+		break;
+	    int largest = l;
+	    if (l+1 < n && A[p+l+1] > A[p+l])
+		largest = l+1;
+	    if (A[p+largest] <= x)
+		break;
+	    A[p+j] = A[p+largest];
+	    j = largest;
+	}
+	A[p+j] = x;
+    }
+
+
+    /**
+     * Sorts the input array using bottom-up heap sort.  After each DeleteMax, the entry
+     * moved to the root is not compared against both children on the way down; instead the
+     * hole at the root is moved down to a leaf along the path of larger children (one
+     * comparison per level), and the entry is then sifted up from that leaf, which is
+     * usually only a level or two.  This roughly halves the number of comparisons of
+     * <code>heapSort</code>.
+     *
+     * @param A integer array
+     */
+    public static void bottomUpHeapSort(int [] A)
+    {
+	int n = A.length;
+
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (int i=(n >> 1) - 1; i>=0; --i)
+	    siftDownBottomUp(A,i,n,A[i]);
+
+	for (int i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i, and
+	    // reinsert the former A[i] into the heap of size i
+	    int x = A[i];
+	    A[i] = A[0];
+	    siftDownBottomUp(A,0,i,x);
+	}
+    }
+
+
+    /*
+     * Stores x in the heap of size n in A[0..n-1], which has a hole at j: the hole is
+     * moved down to a leaf along the larger children, and x is sifted up from there
+     * (but not above j)
+     */
+    private static void siftDownBottomUp(int [] A, int j, int n, int x) {
+	int top = j;
+	int l = (j << 1) + 1;
+	while (l < n) {
+	    if (l+1 < n && A[l+1] > A[l])
+		++l;
+	    A[j] = A[l];
+	    j = l;
+	    l = (j << 1) + 1;
+	}
+
+	while (j > top) {
+	    int parent = (j-1) >> 1;
+	    if (A[parent] >= x)
+		break;
+	    A[j] = A[parent];
+	    j = parent;
+	}
+	A[j] = x;
+    }
+
+
+    /**
+     * Sorts the input array using heap sort on a 4-ary max heap, in which entry j has
+     * children 4j+1..4j+4.  The heap is half as deep as a binary heap, and the four
+     * children of an entry are adjacent in memory, so each level of a sift-down touches a
+     * single cache line on large arrays.
+     *
+     * @param A integer array
+     */
+    public static void quaternaryHeapSort(int [] A)
+    {
+	int n = A.length;
+
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (int i=(n-2) >> 2; i>=0; --i)
+	    siftDown4(A,i,n);
+
+	for (int i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i
+	    int temp = A[0];
+	    A[0] = A[i];
+	    A[i] = temp;
+
+	    // MaxHeapify(A,0) to re-establish max heap of size i
+	    siftDown4(A,0,i);
+	}
+    }
+
+
+    /*
+     * MaxHeapify(A,j) on the 4-ary heap of size n stored in A[0..n-1]
+     */
+    private static void siftDown4(int [] A, int j, int n) {
+	int x = A[j];
+	while (true) {
+	    int c = (j << 2) + 1;
+	    if (c >= n)
+		break;
+
+	    // largest of the (up to) four children
+	    int largest = c;
+	    int last = Math.min(c+3,n-1);
+	    for (int k=c+1; k<=last; ++k)
+		if (A[k] > A[largest])
+		    largest = k;
+
+	    if (A[largest] <= x)
+		break;
+	    A[j] = A[largest];
+	    j = largest;
+	}
+	A[j] = x;
+    }
+
+
+    /*
+     * MinHeapify(H,j) on the heap of size n stored in H[0..n-1]
+     */
+    private static void siftDownMin(int [] H, int j, int n) {
+	int x = H[j];
+	while (true) {
+	    int l = (j << 1) + 1;
+	    if (l >= n)
+		break;
+	    int smallest = l;
+	    if (l+1 < n && H[l+1] < H[l])
+		smallest = l+1;
+	    if (H[smallest] >= x)
+		break;
+	    H[j] = H[smallest];
+	    j = smallest;
+	}
+	H[j] = x;
+    }
+
+
+    /*
+     * Enforces the precondition 0 <= k <= n
+     */
+    private static void checkK(int k, int n) {
+	if (k < 0 || k > n)
+	    throw new IllegalArgumentException("k = " + k + " is not in the range 0.." + n);
+    }
+
+
+    /**
+     * Rearranges the input array so that A[0..k-1] holds its k smallest entries in
+     * increasing order; the order of the remaining entries is unspecified.  A max heap
+     * of the k smallest entries seen so far is kept in A[0..k-1], and each later entry
+     * that is smaller than its root replaces the root, so the running time is
+     * O(n log k) rather than the O(n log n) of a full sort.
+     *
+     * @param  A integer array
+     * @param  k number of smallest entries to sort into place
+     * @throws IllegalArgumentException if k < 0 or k > A.length
+     */
+    public static void partialSort(int [] A, int k)
+    {
+	checkK(k,A.length);
+	if (k == 0)
+	    return;
+
+	// BuildMaxHeap on the first k entries
+	for (int i=(k >> 1) - 1; i>=0; --i)
+	    siftDown(A,0,i,k);
+
+	for (int i=k; i<A.length; ++i) {
+	    if (A[i] < A[0]) {
+		// replace the largest of the k smallest so far
+		int temp = A[0];
+		A[0] = A[i];
+		A[i] = temp;
+		siftDown(A,0,0,k);
+	    }
+	}
+
+	sortHeap(A,0,k);
+    }
+
+
+    /**
+     * Returns the k largest entries of the input array in decreasing order, without
+     * modifying it.  A min heap of the k largest entries seen so far is kept, so the
+     * running time is O(n log k) and only k extra entries are allocated.
+     *
+     * @return array containing the k largest entries of A, largest first
+     * @param  A integer array
+     * @param  k number of entries to return
+     * @throws IllegalArgumentException if k < 0 or k > A.length
+     */
+    public static int [] topK(int [] A, int k)
+    {
+	checkK(k,A.length);
+	int [] H = new int[k];
+	if (k == 0)
+	    return H;
+
+	// BuildMinHeap on the first k entries
+	System.arraycopy(A,0,H,0,k);
+	for (int i=(k >> 1) - 1; i>=0; --i)
+	    siftDownMin(H,i,k);
+
+	for (int i=k; i<A.length; ++i) {
+	    if (A[i] > H[0]) {
+		// replace the smallest of the k largest so far
+		H[0] = A[i];
+		siftDownMin(H,0,k);
+	    }
+	}
+
+	// DeleteMin repeatedly, moving each minimum to the end of the heap
+	for (int i=k-1; i>0; --i) {
+	    int temp = H[0];
+	    H[0] = H[i];
+	    H[i] = temp;
+	    siftDownMin(H,0,i);
+	}
+	return H;
+    }
+
+
+
+    /**
+     * Returns the k-th smallest entry of the input array (counting from 0), that is, the
+     * entry that would be stored at A[k] if A were sorted.  The array is rearranged so that
+     * this entry is at A[k], no entry of A[0..k-1] is larger and no entry of A[k+1..n-1] is
+     * smaller.  Quickselect with median-of-3 pivots and three-way partitioning is used,
+     * which takes expected linear time; once the partitioned subarrays add up to more than
+     * 3n entries, the pivot is chosen by the median-of-medians rule instead, so the running
+     * time is O(n) in the worst case.
+     *
+     * @return k-th smallest entry of A
+     * @param  A integer array
+     * @param  k rank of the entry to return
+     * @throws IllegalArgumentException if k < 0 or k >= A.length
+     */
+    public static int select(int [] A, int k)
+    {
+	// Enforce precondition
+	if (k < 0 || k >= A.length)
+	    throw new IllegalArgumentException("k = " + k + " is not in the range 0.." + (A.length-1));
+
+	return qselect(A,0,A.length-1,k,3L * A.length);
+    }
+
+
+    /**
+     * Returns the median of the input array, rearranging it as <code>select</code> does.
+     * For arrays of even length the lower of the two middle entries is returned.
+     *
+     * @return entry of rank floor((n-1)/2) in A
+     * @param  A integer array
+     * @throws IllegalArgumentException if A is empty
+     */
+    public static int median(int [] A)
+    {
+	return select(A,(A.length-1) / 2);
+    }
+
+
+    /*
+     * Worker function for introselect: rearranges A[p..r] so that A[k] holds the entry of
+     * rank k-p in A[p..r], and returns it.  Median-of-3 pivots are used until the
+     * subarrays partitioned with them add up to budget entries; after that (or if budget
+     * is 0) every pivot is selected by the median-of-medians rule.
+     */
+    private static int qselect(int [] A, int p, int r, int k, long budget) {
+	while (r-p+1 > 16) {
+	    int x;
+	    if (budget > 0) {
+		budget -= r-p+1;
+		int mid = (r + p) / 2;
+		medianof3(A,p,mid,r);
+		x = A[mid];
+	    }
+	    else
+		x = medianOfMedians(A,p,r);
+
+	    // invariant: A[p..lt-1] < x, A[lt..i-1] == x, A[gt+1..r] > x
+	    int lt = p;
+	    int i = p;
+	    int gt = r;
+	    while (i <= gt) {
+		if (A[i] < x) {
+		    int tmp = A[lt];
+		    A[lt] = A[i];
+		    A[i] = tmp;
+		    ++lt;
+		    ++i;
+		}
+		else if (A[i] > x) {
+		    int tmp = A[gt];
+		    A[gt] = A[i];
+		    A[i] = tmp;
+		    --gt;
+		}
+		else
+		    ++i;
+	    }
+
+	    if (k < lt)
+		r = lt-1;
+	    else if (k > gt)
+		p = gt+1;
+	    else
+		return x;
+	}
+
+	isort(A,p,r);
+	return A[k];
+    }
+
+
+    /*
+     * Returns the median of the medians of the groups of 5 entries in A[p..r].  The group
+     * medians are moved to the front of the subarray and their median is selected
+     * recursively with median-of-medians pivots, so at least 3/10 of the entries of A[p..r]
+     * are no larger, and 3/10 no smaller, than the value returned.
+     */
+    private static int medianOfMedians(int [] A, int p, int r) {
+	int m = 0;
+	for (int g=p; g<=r; g+=5) {
+	    int e = Math.min(g+4,r);
+	    isort(A,g,e);
+
+	    // move the median of A[g..e] to A[p+m]
+	    int med = (g + e) / 2;
+	    int tmp = A[p+m];
+	    A[p+m] = A[med];
+	    A[med] = tmp;
+	    ++m;
+	}
+
+	return qselect(A,p,p+m-1,p+(m-1)/2,0);
+    }
+
+
+
+    /**
+     * Sorts the input array using quicksort with deterministic partitioning (using the last
+     * element as the pivot)
+     *
+     * @param A integer array
+     */
+
+    public static void quickSort(int [] A)
+    {
+	qsort(A,0,A.length-1);
+    }
+
+
+    /**
+     * recursive worker function for quicksort
+     */
+    private static void qsort(int [] A, int p, int r) {
+	if (p < r) {
+	    int q = partition(A,p,r);
+	    qsort(A,p,q-1);
+	    qsort(A,q+1,r);
+	}
+    }
+
+
+    /*
+     * Partitions A[p..r] around the pivot A[r] and returns the final index of the pivot
+     */
+    private static int partition(int [] A, int p, int r) {
+	// deterministic partitioning
+	int x = A[r];
+	int i=p-1;
+	for (int j=p; j<r; ++j) {
+	    if (A[j] <= x) {
+		++i;
+		int tmp = A[i];
+		A[i] = A[j];
+		A[j] = tmp;
+	    }
+	}
+	int tmp = A[i+1];
+	A[i+1] = A[r];
+	A[r] = tmp;
+
+	return i+1;
+    }
+
+
+
+
+    /*
+     * NETWORKS[n] lists the comparators i1,j1, i2,j2, ... of a sorting network on n inputs
+     * with the fewest comparators known (proven optimal for n <= 12)
+     */
+    private static final int [][] NETWORKS = {
+	{},
+	{},
+	{ 0,1 },
+	{ 0,2, 0,1, 1,2 },
+	{ 0,2, 1,3, 0,1, 2,3, 1,2 },
+	{ 0,3, 1,4, 0,2, 1,3, 0,1, 2,4, 1,2, 3,4, 2,3 },
+	{ 0,5, 1,3, 2,4, 1,2, 3,4, 0,3, 2,5, 0,1, 2,3, 4,5, 1,2, 3,4 },
+	{ 0,6, 2,3, 4,5, 0,2, 1,4, 3,6, 0,1, 2,5, 3,4, 1,2, 4,6, 2,3, 4,5, 1,2, 3,4,
+	  5,6 },
+	{ 0,2, 1,3, 4,6, 5,7, 0,4, 1,5, 2,6, 3,7, 0,1, 2,3, 4,5, 6,7, 2,4, 3,5, 1,4, 3,6,
+	  1,2, 3,4, 5,6 },
+	{ 0,3, 1,7, 2,5, 4,8, 0,7, 2,4, 3,8, 5,6, 0,2, 1,3, 4,5, 7,8, 1,4, 3,6, 5,7, 0,1,
+	  2,4, 3,5, 6,8, 2,3, 4,5, 6,7, 1,2, 3,4, 5,6 },
+	{ 0,8, 1,9, 2,7, 3,5, 4,6, 0,2, 1,4, 5,8, 7,9, 0,3, 2,4, 5,7, 6,9, 0,1, 3,6, 8,9,
+	  1,5, 2,3, 4,8, 6,7, 1,2, 3,5, 4,6, 7,8, 2,3, 4,5, 6,7, 3,4, 5,6 },
+	{ 0,9, 1,6, 2,4, 3,7, 5,8, 0,1, 3,5, 4,10, 6,9, 7,8, 1,3, 2,5, 4,7, 8,10, 0,4,
+	  1,2, 3,7, 5,9, 6,8, 0,1, 2,6, 4,5, 7,8, 9,10, 2,4, 3,6, 5,7, 8,9, 1,2, 3,4,
+	  5,6, 7,8, 2,3, 4,5, 6,7 },
+	{ 0,8, 1,7, 2,6, 3,11, 4,10, 5,9, 0,1, 2,5, 3,4, 6,9, 7,8, 10,11, 0,2, 1,6, 5,10,
+	  9,11, 0,3, 1,2, 4,6, 5,7, 8,11, 9,10, 1,4, 3,5, 6,8, 7,10, 1,3, 2,5, 6,9, 8,10,
+	  2,3, 4,5, 6,7, 8,9, 4,6, 5,7, 3,4, 5,6, 7,8 },
+	{ 0,12, 1,10, 2,9, 3,7, 5,11, 6,8, 1,6, 2,3, 4,11, 7,9, 8,10, 0,4, 1,2, 3,6, 7,8,
+	  9,10, 11,12, 4,6, 5,9, 8,11, 10,12, 0,5, 3,8, 4,7, 6,11, 9,10, 0,1, 2,5, 6,9,
+	  7,8, 10,11, 1,3, 2,4, 5,6, 9,10, 1,2, 3,4, 5,7, 6,8, 2,3, 4,5, 6,7, 8,9, 3,4,
+	  5,6 },
+	{ 0,1, 2,3, 4,5, 6,7, 8,9, 10,11, 12,13, 0,2, 1,3, 4,8, 5,9, 10,12, 11,13, 0,4,
+	  1,2, 3,7, 5,8, 6,10, 9,13, 11,12, 0,6, 1,5, 3,9, 4,10, 7,13, 8,12, 2,10, 3,11,
+	  4,6, 7,9, 1,3, 2,8, 5,11, 6,7, 10,12, 1,4, 2,6, 3,5, 7,11, 8,10, 9,12, 2,4,
+	  3,6, 5,8, 7,10, 9,11, 3,4, 5,6, 7,8, 9,10, 6,7 },
+	{ 0,13, 1,12, 3,14, 4,8, 5,6, 7,11, 9,10, 0,5, 1,7, 2,9, 3,4, 6,13, 8,14, 11,12,
+	  0,1, 2,3, 4,5, 6,8, 7,9, 10,11, 12,13, 0,2, 1,3, 4,10, 5,11, 6,7, 8,9, 12,14,
+	  1,2, 3,12, 4,6, 5,7, 8,10, 9,11, 13,14, 1,4, 2,6, 5,8, 7,10, 9,13, 11,14, 2,4,
+	  3,6, 9,12, 11,13, 3,5, 6,8, 7,9, 10,12, 3,4, 5,6, 7,8, 9,10, 11,12, 6,7, 8,9 },
+	{ 0,13, 1,12, 2,15, 3,14, 4,8, 5,6, 7,11, 9,10, 0,5, 1,7, 2,9, 3,4, 6,13, 8,14,
+	  10,15, 11,12, 0,1, 2,3, 4,5, 6,8, 7,9, 10,11, 12,13, 14,15, 0,2, 1,3, 4,10,
+	  5,11, 6,7, 8,9, 12,14, 13,15, 1,2, 3,12, 4,6, 5,7, 8,10, 9,11, 13,14, 1,4, 2,6,
+	  5,8, 7,10, 9,13, 11,14, 2,4, 3,6, 9,12, 11,13, 3,5, 6,8, 7,9, 10,12, 3,4, 5,6,
+	  7,8, 9,10, 11,12, 6,7, 8,9 }
+    };
+
+
+    /*
+     * Sorts A[p..r], which has at most NETWORK_MAX entries, with a sorting network.  Each
+     * comparator is a min/max pair, so the sequence of operations does not depend on the data.
+     */
+    private static void sortNetwork(int [] A, int p, int r) {
+	int [] net = NETWORKS[r-p+1];
+	for (int k=0; k<net.length; k+=2) {
+	    int i = p + net[k];
+	    int j = p + net[k+1];
+	    int x = A[i];
+	    int y = A[j];
+	    A[i] = Math.min(x,y);
+	    A[j] = Math.max(x,y);
+	}
+    }
+
+
+    /**
+     * Sorts the input array using introsort with the same median-of-3 partitioning as
+     * <code>quicksortImproved</code>, but without the early abort: subarrays of at most 16
+     * entries (or the calibrated network cutoff) are sorted in place by an optimal sorting
+     * network, one leaf at a time, so there is no final insertion sort pass over the whole
+     * array.  Once the recursion depth exceeds 2 floor(lg n), the current subarray is sorted
+     * with heap sort instead.
+     *
+     * @param A integer array
+     */
+
+    public static void networkQuicksort(int [] A)
+    {
+	// recursive introsort, sorting networks at the leaves
+	qsortNetwork(A,0,A.length-1,depthLimit(A.length));
+    }
+
+
+    /*
+     * recursive worker function for introsort with sorting network leaves
+     */
+    private static void qsortNetwork(int [] A, int p, int r, int depth) {
+	if (r-p+1 > networkCutoff) {
+	    if (depth == 0) {
+		hsort(A,p,r-p+1);
+		return;
+	    }
+
+	    int q = partitionImproved(A,p,r);
+	    qsortNetwork(A,p,q-1,depth-1);
+	    qsortNetwork(A,q+1,r,depth-1);
+	}
+	else
+	    sortNetwork(A,p,r);
+    }
+
+
+    /**
+     * Sorts the input array using quicksort, the early abort strategy, and a "median-of-3"
+     * pivot selection strategy.  The pivot is defined to be the median of the first entry,
+     * the last, and the element in the middle of the array.  Once the pivot entry is chosen,
+     * these three elements are arranged so that the smallest is at the beginning of the array,
+     * the largest is at the end, and the pivot is second last, allowing partition to start at
+     * index 1 (instead of 0) and finish one position earlier.  Subarrays of fewer than 128
+     * entries (or the calibrated quicksort cutoff) are left to the final insertion sort pass.
+     *
+     * @param A integer array
+     */
+
+    public static void quicksortImproved(int [] A)
+    {
+        // partial recursive quicksort with early abort
+	qsortImproved(A,0,A.length-1);
+
+        // insertion sort on nearly-sorted array A
+	for (int i=1; i<A.length; ++i) {
+	    int j = i;
+	    int tmp = A[i];
+	    while (j > 0 && tmp < A[j-1]) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+    private static void medianof3(int [] A, int i1, int i2, int i3) {
+	if (A[i1] > A[i2]) {
+	    int tmp = A[i1];
+	    A[i1] = A[i2];
+	    A[i2] = tmp;
+	}
+
+	if (A[i2] > A[i3]) {
+	    int tmp = A[i2];
+	    A[i2] = A[i3];
+	    A[i3] = tmp;
+	}
+
+	if (A[i1] > A[i2]) {
+	    int tmp = A[i1];
+	    A[i1] = A[i2];
+	    A[i2] = tmp;
+	}
+    }
+
+
+    private static void qsortImproved(int [] A, int p, int r) {
+	if (r-p+1 >= quicksortCutoff) {
+	    int q = partitionImproved(A,p,r);
+	    qsortImproved(A,p,q-1);
+	    qsortImproved(A,q+1,r);
+	}
+    }
+
+
+    /*
+     * Partitions A[p..r] around the median of A[p], A[mid] and A[r] and returns the final
+     * index of the pivot.  Requires r-p+1 >= 3.
+     */
+    private static int partitionImproved(int [] A, int p, int r) {
+	// deterministic partitioning --- median of 3 strategy
+	int mid = (r + p) / 2;
+
+	if (A[p] > A[mid]) {
+	    int tmp = A[p];
+	    A[p] = A[mid];
+	    A[mid] = tmp;
+	}
+
+	if (A[mid] > A[r]) {
+	    int tmp = A[mid];
+	    A[mid] = A[r];
+	    A[r] = tmp;
+	}
+
+	if (A[p] > A[mid]) {
+	    int tmp = A[p];
+	    A[p] = A[mid];
+	    A[mid] = tmp;
+	}
+
+	int tmp = A[mid];
+	A[mid] = A[r-1];
+	A[r-1] = tmp;
+
+	int x = A[r-1];
+	int i=p;
+	for (int j=p+1; j<r-1; ++j) {
+	    if (A[j] <= x) {
+		++i;
+		tmp = A[i];
+		A[i] = A[j];
+		A[j] = tmp;
+	    }
+	}
+	tmp = A[i+1];
+	A[i+1] = A[r-1];
+	A[r-1] = tmp;
+
+	return i+1;
+    }
+
+
+
+    /**
+     * Sorts the input array using the same algorithm as <code>quicksortImproved</code>, but
+     * the two partitions of every subarray of at least <code>PARALLEL_THRESHOLD</code>
+     * elements are sorted in parallel on the common fork/join pool.  Smaller subarrays are
+     * handled by the sequential median-of-3 quicksort, and the array is finished by the
+     * same insertion sort pass.
+     *
+     * @param A integer array
+     */
+
+    public static void parallelQuicksortImproved(int [] A)
+    {
+	// partial parallel quicksort with early abort
+	ForkJoinPool.commonPool().invoke(new QuicksortTask(A,0,A.length-1));
+
+	// insertion sort on nearly-sorted array A
+	insertionSort(A);
+    }
+
+
+    /*
+     * Fork/join task partially sorting A[p..r] with quicksort and early abort
+     */
+    private static class QuicksortTask extends RecursiveAction {
+	private final int [] A;
+	private final int p, r;
+
+	QuicksortTask(int [] A, int p, int r) {
+	    this.A = A;
+	    this.p = p;
+	    this.r = r;
+	}
+
+	protected void compute() {
+	    if (r-p+1 < PARALLEL_THRESHOLD) {
+		qsortImproved(A,p,r);
+		return;
+	    }
+
+	    int q = partitionImproved(A,p,r);
+	    invokeAll(new QuicksortTask(A,p,q-1), new QuicksortTask(A,q+1,r));
+	}
+    }
+
+
+
+    /*
+     * Returns the recursion depth after which introsort switches to heap sort:
+     * 2 floor(lg n) for an array of length n
+     */
+    private static int depthLimit(int n) {
+	return n > 1 ? 2 * (31 - Integer.numberOfLeadingZeros(n)) : 0;
+    }
+
+
+    /**
+     * Sorts the input array using introsort based on quicksort with deterministic
+     * partitioning (using the last element as the pivot).  Once the recursion depth exceeds
+     * 2 floor(lg n), the current subarray is sorted with heap sort instead, so the running
+     * time is O(n log n) and the recursion depth O(log n) even on sorted input.
+     *
+     * @param A integer array
+     */
+
+    public static void introQuickSort(int [] A)
+    {
+	qsortIntro(A,0,A.length-1,depthLimit(A.length));
+    }
+
+
+    /*
+     * recursive worker function for introsort with deterministic partitioning
+     */
+    private static void qsortIntro(int [] A, int p, int r, int depth) {
+	if (p < r) {
+	    if (depth == 0) {
+		hsort(A,p,r-p+1);
+		return;
+	    }
+
+	    int q = partition(A,p,r);
+	    qsortIntro(A,p,q-1,depth-1);
+	    qsortIntro(A,q+1,r,depth-1);
+	}
+    }
+
+
+    /**
+     * Sorts the input array using the same algorithm as <code>quicksortImproved</code>, except
+     * that once the recursion depth exceeds 2 floor(lg n), the current subarray is sorted
+     * with heap sort instead.  This bounds the running time by O(n log n) on inputs that
+     * defeat median-of-3 pivot selection.
+     *
+     * @param A integer array
+     */
+
+    public static void introQuicksortImproved(int [] A)
+    {
+	// partial recursive introsort with early abort
+	qsortImprovedIntro(A,0,A.length-1,depthLimit(A.length));
+
+	// insertion sort on nearly-sorted array A
+	insertionSort(A);
+    }
+
+
+    /*
+     * recursive worker function for introsort with median-of-3 partitioning and early abort
+     */
+    private static void qsortImprovedIntro(int [] A, int p, int r, int depth) {
+	if (r-p+1 >= quicksortCutoff) {
+	    if (depth == 0) {
+		hsort(A,p,r-p+1);
+		return;
+	    }
+
+	    int q = partitionImproved(A,p,r);
+	    qsortImprovedIntro(A,p,q-1,depth-1);
+	    qsortImprovedIntro(A,q+1,r,depth-1);
+	}
+    }
+
+
+
+    /**
+     * Sorts the input array using quicksort with three-way ("Dutch national flag")
+     * partitioning, the early abort strategy, and median-of-3 pivot selection.  Each
+     * partition step divides the subarray into entries less than, equal to, and greater than
+     * the pivot, and only the first and last of these are sorted recursively, so arrays with
+     * many duplicate keys are sorted in far fewer steps than with two-way partitioning.
+     *
+     * @param A integer array
+     */
+
+    public static void quicksort3Way(int [] A)
+    {
+	// partial recursive quicksort with early abort
+	qsort3Way(A,0,A.length-1);
+
+	// insertion sort on nearly-sorted array A
+	insertionSort(A);
+    }
+
+
+    /*
+     * recursive worker function for quicksort with three-way partitioning
+     */
+    private static void qsort3Way(int [] A, int p, int r) {
+	if (r-p+1 >= quicksortCutoff) {
+	    // pivot value is the median of the first, middle and last entries
+	    int mid = (r + p) / 2;
+	    int x;
+	    if (A[p] <= A[mid])
+		x = A[mid] <= A[r] ? A[mid] : max(A[p],A[r]);
+	    else
+		x = A[p] <= A[r] ? A[p] : max(A[mid],A[r]);
+
+	    // invariant: A[p..lt-1] < x, A[lt..i-1] == x, A[gt+1..r] > x
+	    int lt = p;
+	    int i = p;
+	    int gt = r;
+	    while (i <= gt) {
+		if (A[i] < x) {
+		    int tmp = A[lt];
+		    A[lt] = A[i];
+		    A[i] = tmp;
+		    ++lt;
+		    ++i;
+		}
+		else if (A[i] > x) {
+		    int tmp = A[gt];
+		    A[gt] = A[i];
+		    A[i] = tmp;
+		    --gt;
+		}
+		else
+		    ++i;
+	    }
+
+	    qsort3Way(A,p,lt-1);
+	    qsort3Way(A,gt+1,r);
+	}
+    }
+
+
+
+    /**
+     * Sorts the input array using dual-pivot quicksort (Yaroslavskiy's partitioning scheme)
+     * with the early abort strategy.  The entries one third and two thirds of the way
+     * through the subarray are chosen as the pivots p1 <= p2, and each partition step divides
+     * the subarray into entries less than p1, between p1 and p2, and greater than p2.
+     * Subarrays of fewer than 128 entries (or the calibrated quicksort cutoff) are left
+     * unsorted and the array is finished by an insertion sort pass.
+     *
+     * @param A integer array
+     */
+
+    public static void dualPivotQuicksort(int [] A)
+    {
+	// partial recursive quicksort with early abort
+	qsortDualPivot(A,0,A.length-1);
+
+	// insertion sort on nearly-sorted array A
+	insertionSort(A);
+    }
+
+
+    /*
+     * recursive worker function for dual-pivot quicksort
+     */
+    private static void qsortDualPivot(int [] A, int p, int r) {
+	if (r-p+1 >= quicksortCutoff) {
+	    // move the pivot candidates to the ends of the subarray, smaller one first
+	    int third = (r-p+1) / 3;
+	    int tmp = A[p];
+	    A[p] = A[p+third];
+	    A[p+third] = tmp;
+	    tmp = A[r];
+	    A[r] = A[r-third];
+	    A[r-third] = tmp;
+
+	    if (A[p] > A[r]) {
+		tmp = A[p];
+		A[p] = A[r];
+		A[r] = tmp;
+	    }
+
+	    // invariant: A[p+1..lt-1] < x1, x1 <= A[lt..k-1] <= x2, A[gt+1..r-1] > x2
+	    int x1 = A[p];
+	    int x2 = A[r];
+	    int lt = p+1;
+	    int gt = r-1;
+	    for (int k=lt; k<=gt; ++k) {
+		if (A[k] < x1) {
+		    tmp = A[k];
+		    A[k] = A[lt];
+		    A[lt] = tmp;
+		    ++lt;
+		}
+		else if (A[k] > x2) {
+		    while (A[gt] > x2 && k < gt)
+			--gt;
+		    tmp = A[k];
+		    A[k] = A[gt];
+		    A[gt] = tmp;
+		    --gt;
+
+		    if (A[k] < x1) {
+			tmp = A[k];
+			A[k] = A[lt];
+			A[lt] = tmp;
+			++lt;
+		    }
+		}
+	    }
+
+	    // move the pivots to their final positions
+	    --lt;
+	    ++gt;
+	    tmp = A[p];
+	    A[p] = A[lt];
+	    A[lt] = tmp;
+	    tmp = A[r];
+	    A[r] = A[gt];
+	    A[gt] = tmp;
+
+	    qsortDualPivot(A,p,lt-1);
+	    if (x1 < x2)
+		qsortDualPivot(A,lt+1,gt-1);
+	    qsortDualPivot(A,gt+1,r);
+	}
+    }
+
+
+
+    /** number of entries classified at a time by the block partitioning of blockQuicksort */
+    private static final int BLOCK = 128;
+
+
+    /**
+     * Sorts the input array using the same algorithm as <code>introQuicksortImproved</code>,
+     * except that each subarray is partitioned with BlockQuicksort-style block partitioning
+     * (Edelkamp and Weiss).  Instead of swapping as soon as an entry on the wrong side of the
+     * pivot is found, blocks of BLOCK entries at each end are scanned first, and the offsets
+     * of the misplaced entries are recorded in two small buffers.  The recording step
+     * contains no branches that depend on the data, so on random input it avoids the branch
+     * mispredictions of the loop in <code>partitionImproved</code>; the swaps are then done
+     * in bulk.
+     *
+     * @param A integer array
+     */
+
+    public static void blockQuicksort(int [] A)
+    {
+	// partial recursive introsort with early abort
+	qsortBlock(A,0,A.length-1,depthLimit(A.length),new int[BLOCK],new int[BLOCK]);
+
+	// insertion sort on nearly-sorted array A
+	insertionSort(A);
+    }
+
+
+    /*
+     * recursive worker function for block quicksort; offL and offR are the offset buffers
+     */
+    private static void qsortBlock(int [] A, int p, int r, int depth, int [] offL, int [] offR) {
+	if (r-p+1 >= quicksortCutoff) {
+	    if (depth == 0) {
+		hsort(A,p,r-p+1);
+		return;
+	    }
+
+	    int q = partitionBlock(A,p,r,offL,offR);
+	    qsortBlock(A,p,q-1,depth-1,offL,offR);
+	    qsortBlock(A,q+1,r,depth-1,offL,offR);
+	}
+    }
+
+
+    /*
+     * Block partitioning of A[p..r] around the median of A[p], A[mid] and A[r].  Returns the
+     * final position q of the pivot, with A[p..q-1] <= A[q] <= A[q+1..r].
+     */
+    private static int partitionBlock(int [] A, int p, int r, int [] offL, int [] offR) {
+	// median of 3 strategy; the pivot is moved to A[r]
+	int mid = (r + p) / 2;
+	medianof3(A,p,mid,r);
+	int tmp = A[mid];
+	A[mid] = A[r];
+	A[r] = tmp;
+	int x = A[r];
+
+	// invariant: A[p..l-1] <= x and A[rr+1..r-1] >= x
+	int l = p;
+	int rr = r-1;
+	int numL = 0, numR = 0, startL = 0, startR = 0;
+
+	while (rr-l+1 > 2*BLOCK) {
+	    // record the offsets of entries >= x in the left block ...
+	    if (numL == 0) {
+		startL = 0;
+		for (int i=0; i<BLOCK; ++i) {
+		    offL[numL] = i;
+		    numL += A[l+i] >= x ? 1 : 0;
+		}
+	    }
+
+	    // ... and of entries <= x in the right block
+	    if (numR == 0) {
+		startR = 0;
+		for (int i=0; i<BLOCK; ++i) {
+		    offR[numR] = i;
+		    numR += A[rr-i] <= x ? 1 : 0;
+		}
+	    }
+
+	    // swap as many misplaced pairs as possible
+	    int num = Math.min(numL,numR);
+	    for (int j=0; j<num; ++j) {
+		int a = l + offL[startL+j];
+		int b = rr - offR[startR+j];
+		tmp = A[a];
+		A[a] = A[b];
+		A[b] = tmp;
+	    }
+	    numL -= num;
+	    numR -= num;
+	    startL += num;
+	    startR += num;
+
+	    // a block with no misplaced entries left is done
+	    if (numL == 0)
+		l += BLOCK;
+	    if (numR == 0)
+		rr -= BLOCK;
+	}
+
+	// partition the remaining at most 2*BLOCK entries A[l..rr] directly
+	int i = l-1;
+	for (int j=l; j<=rr; ++j) {
+	    if (A[j] <= x) {
+		++i;
+		tmp = A[i];
+		A[i] = A[j];
+		A[j] = tmp;
+	    }
+	}
+	tmp = A[i+1];
+	A[i+1] = A[r];
+	A[r] = tmp;
+
+	return i+1;
+    }
+
+
+
+    /*
+     * Holds the Vector API sort from VectorSorting (vector/VectorSorting.java), or null if
+     * that class or the jdk.incubator.vector module is not available.  It is loaded by
+     * reflection, on first use, so that this class compiles and runs without the module.
+     */
+    private static class VectorSortHolder {
+	static final BiConsumer<int [], int []> SORT = load();
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<int [], int []> load() {
+	    try {
+		return (BiConsumer<int [], int []>) Class.forName("VectorSorting").getDeclaredConstructor().newInstance();
+	    }
+	    catch (ReflectiveOperationException | LinkageError e) {
+		return null;
+	    }
+	}
+    }
+
+
+    /**
+     * Returns true if <code>vectorQuicksort</code> uses the Vector API, that is, if the
+     * JVM was started with <code>--add-modules jdk.incubator.vector</code> and
+     * <code>VectorSorting</code> is on the class path.  That class is compiled separately:
+     * <pre>
+     *   javac --add-modules jdk.incubator.vector -d . vector/VectorSorting.java
+     * </pre>
+     *
+     * @return true if the Vector API sort is available
+     */
+    public static boolean vectorSortAvailable()
+    {
+	return VectorSortHolder.SORT != null;
+    }
+
+
+    /**
+     * Sorts the input array using quicksort with partitioning and small-block sorting done
+     * with the incubating Vector API (see <code>VectorSorting</code>).  If the Vector API is
+     * not available, the array is sorted with <code>blockQuicksort</code> instead.
+     *
+     * @param A integer array
+     */
+    public static void vectorQuicksort(int [] A)
+    {
+	BiConsumer<int [], int []> sort = VectorSortHolder.SORT;
+	if (sort != null)
+	    sort.accept(A,new int[A.length]);
+	else
+	    blockQuicksort(A);
+    }
+
+
+    /**
+     * Sorts the input array using the same quicksort as <code>vectorQuicksort(A)</code>,
+     * but uses the caller-supplied array B as scratch space instead of allocating one.  B
+     * is not used if the Vector API is not available.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void vectorQuicksort(int [] A, int [] B)
+    {
+	checkScratch(A,B);
+	BiConsumer<int [], int []> sort = VectorSortHolder.SORT;
+	if (sort != null)
+	    sort.accept(A,B);
+	else
+	    blockQuicksort(A);
+    }
+
+
+
+    /**
+     * Sorts the input array using least-significant-digit radix sort on the four bytes of
+     * each key, in linear time.  Each pass is a stable counting sort on one byte, moving the
+     * entries between A and a single auxiliary array; the sign bit is inverted in the last
+     * pass so that negative keys are placed before positive ones.  Passes in which every
+     * key has the same byte are skipped.
+     *
+     * @param A integer array
+     */
+
+    public static void radixSort(int [] A)
+    {
+	radixSort(A,new int[A.length]);
+    }
+
+
+    /**
+     * Sorts the input array using the same LSD radix sort as <code>radixSort(A)</code>,
+     * but uses the caller-supplied array B as scratch space instead of allocating one.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void radixSort(int [] A, int [] B)
+    {
+	checkScratch(A,B);
+	int n = A.length;
+	if (n < 2)
+	    return;
+
+	int [] src = A;
+	int [] dst = B;
+	int [] count = TABLES.get().count;
+
+	for (int shift=0; shift<32; shift+=8) {
+	    // byte 3 holds the sign bit, which must be inverted to order signed keys
+	    int flip = shift == 24 ? 0x80 : 0;
+
+	    // count occurrences of each byte value, stored at count[value+1]
+	    for (int d=0; d<=256; ++d)
+		count[d] = 0;
+	    for (int i=0; i<n; ++i)
+		++count[(((src[i] >>> shift) & 0xFF) ^ flip) + 1];
+
+	    if (count[(((src[0] >>> shift) & 0xFF) ^ flip) + 1] == n)
+		continue;
+
+	    // count[d] becomes the index of the first entry with byte value d
+	    for (int d=1; d<256; ++d)
+		count[d] += count[d-1];
+
+	    for (int i=0; i<n; ++i)
+		dst[count[((src[i] >>> shift) & 0xFF) ^ flip]++] = src[i];
+
+	    int [] tmp = src;
+	    src = dst;
+	    dst = tmp;
+	}
+
+	if (src != A)
+	    System.arraycopy(src,0,A,0,n);
+    }
+
+
+
+    /**
+     * Sorts the input array using the same least-significant-digit radix sort as
+     * <code>radixSort</code>, with every pass split over the common fork/join pool.  The
+     * array is divided into one slice per worker thread; in each pass every slice builds a
+     * histogram of its byte values in parallel, the histograms are combined into one table
+     * of output positions (slice by slice within each byte value, so the sort stays
+     * stable), and the slices are then scattered into the auxiliary array in parallel.
+     * Arrays of fewer than <code>PARALLEL_THRESHOLD</code> elements are sorted sequentially.
+     *
+     * @param A integer array
+     */
+
+    public static void parallelRadixSort(int [] A)
+    {
+	parallelRadixSort(A,new int[A.length]);
+    }
+
+
+    /**
+     * Sorts the input array using the same parallel LSD radix sort as
+     * <code>parallelRadixSort(A)</code>, but uses the caller-supplied array B as scratch
+     * space instead of allocating one.  The fork/join tasks and the per-slice count
+     * tables are still allocated, unless the array is small enough to be sorted
+     * sequentially.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void parallelRadixSort(int [] A, int [] B)
+    {
+	checkScratch(A,B);
+	int n = A.length;
+	int slices = Math.min(ForkJoinPool.getCommonPoolParallelism(), n / PARALLEL_THRESHOLD);
+	if (slices < 2) {
+	    radixSort(A,B);
+	    return;
+	}
+
+	// slice t is src[bounds[t]..bounds[t+1]-1]
+	int [] bounds = new int[slices+1];
+	for (int t=0; t<=slices; ++t)
+	    bounds[t] = (int) ((long) n * t / slices);
+
+	int [] src = A;
+	int [] dst = B;
+	int [][] count = new int[slices][256];
+
+	for (int shift=0; shift<32; shift+=8) {
+	    // byte 3 holds the sign bit, which must be inverted to order signed keys
+	    int flip = shift == 24 ? 0x80 : 0;
+
+	    ForkJoinPool.commonPool().invoke(new RadixTask(src,dst,bounds,count,0,slices,shift,flip,false));
+
+	    int first = ((src[0] >>> shift) & 0xFF) ^ flip;
+	    int total = 0;
+	    for (int t=0; t<slices; ++t)
+		total += count[t][first];
+	    if (total == n)
+		continue;
+
+	    // count[t][d] becomes the index of the first entry of slice t with byte value d
+	    int pos = 0;
+	    for (int d=0; d<256; ++d)
+		for (int t=0; t<slices; ++t) {
+		    int c = count[t][d];
+		    count[t][d] = pos;
+		    pos += c;
+		}
+
+	    ForkJoinPool.commonPool().invoke(new RadixTask(src,dst,bounds,count,0,slices,shift,flip,true));
+
+	    int [] tmp = src;
+	    src = dst;
+	    dst = tmp;
+	}
+
+	if (src != A)
+	    System.arraycopy(src,0,A,0,n);
+    }
+
+
+    /*
+     * Fork/join task performing one phase of a parallel radix sort pass on slices t0..t1-1:
+     * either counting the byte values of each slice into count[t], or scattering each slice
+     * from src into dst at the positions given by count[t].
+     */
+    private static class RadixTask extends RecursiveAction {
+	private final int [] src, dst, bounds;
+	private final int [][] count;
+	private final int t0, t1, shift, flip;
+	private final boolean scatter;
+
+	RadixTask(int [] src, int [] dst, int [] bounds, int [][] count, int t0, int t1,
+		  int shift, int flip, boolean scatter) {
+	    this.src = src;
+	    this.dst = dst;
+	    this.bounds = bounds;
+	    this.count = count;
+	    this.t0 = t0;
+	    this.t1 = t1;
+	    this.shift = shift;
+	    this.flip = flip;
+	    this.scatter = scatter;
+	}
+
+	protected void compute() {
+	    if (t1-t0 > 1) {
+		int mid = (t0+t1) / 2;
+		invokeAll(new RadixTask(src,dst,bounds,count,t0,mid,shift,flip,scatter),
+			  new RadixTask(src,dst,bounds,count,mid,t1,shift,flip,scatter));
+		return;
+	    }
+
+	    int [] cnt = count[t0];
+	    if (scatter) {
+		for (int i=bounds[t0]; i<bounds[t0+1]; ++i)
+		    dst[cnt[((src[i] >>> shift) & 0xFF) ^ flip]++] = src[i];
+	    }
+	    else {
+		for (int d=0; d<256; ++d)
+		    cnt[d] = 0;
+		for (int i=bounds[t0]; i<bounds[t0+1]; ++i)
+		    ++cnt[((src[i] >>> shift) & 0xFF) ^ flip];
+	    }
+	}
+    }
+
+
+
+    /**
+     * Sorts the input array in place using most-significant-digit radix sort on the four
+     * bytes of each key ("American flag sort").  Each level counts the byte values in the
+     * subarray, permutes the entries into their buckets by following swap cycles, and then
+     * sorts every bucket on the next byte.  Apart from the recursion, only two tables of 256
+     * counters per level are needed.  Buckets of fewer than 64 entries are finished with
+     * insertion sort.
+     *
+     * @param A integer array
+     */
+
+    public static void americanFlagSort(int [] A)
+    {
+	int [][] next = new int[4][256];
+	int [][] end = new int[4][256];
+	afsort(A,0,A.length-1,0,next,end);
+    }
+
+
+    /*
+     * Recursive worker function for American flag sort: sorts A[p..r], whose keys agree on
+     * the bytes above byte 3-level, using next[level] and end[level] as work space.
+     */
+    private static void afsort(int [] A, int p, int r, int level, int [][] next, int [][] end) {
+	if (r-p+1 < 64) {
+	    isort(A,p,r);
+	    return;
+	}
+
+	int shift = 24 - 8*level;
+	// byte 3 holds the sign bit, which must be inverted to order signed keys
+	int flip = level == 0 ? 0x80 : 0;
+	int [] nxt = next[level];
+	int [] lim = end[level];
+
+	// count occurrences of each byte value
+	for (int d=0; d<256; ++d)
+	    lim[d] = 0;
+	for (int i=p; i<=r; ++i)
+	    ++lim[((A[i] >>> shift) & 0xFF) ^ flip];
+
+	// bucket d is A[nxt[d]..lim[d]-1], and nxt[d] is its next unfilled position
+	nxt[0] = p;
+	for (int d=1; d<256; ++d)
+	    nxt[d] = nxt[d-1] + lim[d-1];
+	for (int d=0; d<256; ++d)
+	    lim[d] += nxt[d];
+
+	// move every entry into its bucket, following cycles of displaced entries
+	for (int d=0; d<256; ++d) {
+	    while (nxt[d] < lim[d]) {
+		int v = A[nxt[d]];
+		int b = ((v >>> shift) & 0xFF) ^ flip;
+		while (b != d) {
+		    int tmp = A[nxt[b]];
+		    A[nxt[b]] = v;
+		    ++nxt[b];
+		    v = tmp;
+		    b = ((v >>> shift) & 0xFF) ^ flip;
+		}
+		A[nxt[d]] = v;
+		++nxt[d];
+	    }
+	}
+
+	// bucket d is now A[lim[d-1]..lim[d]-1], with lim[-1] = p
+	if (level < 3) {
+	    int lo = p;
+	    for (int d=0; d<256; ++d) {
+		if (lim[d]-lo > 1)
+		    afsort(A,lo,lim[d]-1,level+1,next,end);
+		lo = lim[d];
+	    }
+	}
+    }
+
+
+
+    /**
+     * Sorts the input array using counting sort when its keys come from a small range, and
+     * using <code>introQuicksortImproved</code> otherwise.  The minimum and maximum keys are
+     * found in one pass; if the number of possible key values max-min+1 is at most the
+     * length of the array, the keys are counted and written back in order, in linear time.
+     *
+     * @param A integer array
+     */
+
+    public static void countingSort(int [] A)
+    {
+	int n = A.length;
+	if (n < 2)
+	    return;
+
+	int min = A[0];
+	int max = A[0];
+	for (int i=1; i<n; ++i) {
+	    if (A[i] < min)
+		min = A[i];
+	    else if (A[i] > max)
+		max = A[i];
+	}
+
+	// fall back on a comparison sort if the range of keys is too large
+	if ((long) max - min + 1 > n) {
+	    introQuicksortImproved(A);
+	    return;
+	}
+
+	int [] count = new int[max-min+1];
+	for (int i=0; i<n; ++i)
+	    ++count[A[i]-min];
+
+	int j = 0;
+	for (int v=0; v<count.length; ++v)
+	    for (int c=count[v]; c>0; --c) {
+		A[j] = min+v;
+		++j;
+	    }
+    }
+
+
+
+    /*
+     * Versions of merge sort, heap sort and the two quicksorts specialized for arrays of
+     * long, short and double values.  They use the same algorithms as the int versions
+     * above; each primitive type has its own copy of the worker functions so that the
+     * inner loops compare and move values of that type directly.
+     */
+
+
+    /**
+     * Sorts the input array using merge sort
+     *
+     * @param A long array
+     */
+    public static void mergeSort(long [] A)
+    {
+	long [] B = new long[A.length];
+	msort(A,0,A.length-1,B);
+    }
+
+
+    /**
+     * Sorts the input array using heap sort
+     *
+     * @param A long array
+     */
+    public static void heapSort(long [] A)
+    {
+	hsort(A,0,A.length);
+    }
+
+
+    /**
+     * Sorts the input array using quicksort with deterministic partitioning (using the last
+     * element as the pivot)
+     *
+     * @param A long array
+     */
+    public static void quickSort(long [] A)
+    {
+	qsort(A,0,A.length-1);
+    }
+
+
+    /**
+     * Sorts the input array using quicksort with a "median-of-3" pivot (the median of the
+     * first, middle and last entries) and the early abort strategy: subarrays of fewer than
+     * 128 entries (or the calibrated quicksort cutoff) are left unsorted, and the array is
+     * finished by an insertion sort pass
+     *
+     * @param A long array
+     */
+    public static void quicksortImproved(long [] A)
+    {
+	// partial recursive quicksort with early abort
+	qsortImproved(A,0,A.length-1);
+
+	// insertion sort on nearly-sorted array A
+	isort(A,0,A.length-1);
+    }
+
+
+    /*
+     * Recursive worker function for merge sort of long arrays
+     */
+    private static void msort(long [] A, int l, int r, long [] B) {
+	if (l < r) {
+	    int mid = (r+l) / 2;
+	    msort(A,l,mid,B);
+	    msort(A,mid+1,r,B);
+
+	    // merge into array B, copy back to A
+	    int i1 = l;
+	    int i2 = mid+1;
+	    int j = l;
+	    while (i1 <= mid && i2 <= r) {
+		if (A[i1] <= A[i2]) {
+		    B[j] = A[i1];
+		    ++i1;
+		}
+		else {
+		    B[j] = A[i2];
+		    ++i2;
+		}
+		++j;
+	    }
+	    while (i1 <= mid) {
+		B[j] = A[i1];
+		++i1;
+		++j;
+	    }
+	    while (i2 <= r) {
+		B[j] = A[i2];
+		++i2;
+		++j;
+	    }
+
+	    for (j=l; j<=r; ++j)
+		A[j] = B[j];
+	}
+    }
+
+
+    /*
+     * Worker function for heap sort of long arrays: sorts the n entries A[p..p+n-1]
+     */
+    private static void hsort(long [] A, int p, int n) {
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (int i=(n >> 1) - 1; i>=0; --i)
+	    siftDown(A,p,i,n);
+
+	for (int i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i
+	    long temp = A[p];
+	    A[p] = A[p+i];
+	    A[p+i] = temp;
+
+	    // MaxHeapify(A,0) to re-establish max heap of size i
+	    siftDown(A,p,0,i);
+	}
+    }
+
+
+    /*
+     * MaxHeapify(A,j) on the heap of size n stored in long array A[p..p+n-1]
+     */
+    private static void siftDown(long [] A, int p, int j, int n) {
+	long x = A[p+j];
+	while (true) {
+	    int l = (j << 1) + 1;
+	    if (l >= n)
+		break;
+	    int largest = l;
+	    if (l+1 < n && A[p+l+1] > A[p+l])
+		largest = l+1;
+	    if (A[p+largest] <= x)
+		break;
+	    A[p+j] = A[p+largest];
+	    j = largest;
+	}
+	A[p+j] = x;
+    }
+
+
+    /*
+     * recursive worker function for quicksort of long arrays
+     */
+    private static void qsort(long [] A, int p, int r) {
+	if (p < r) {
+	    // deterministic partitioning
+	    long x = A[r];
+	    int i=p-1;
+	    for (int j=p; j<r; ++j) {
+		if (A[j] <= x) {
+		    ++i;
+		    long tmp = A[i];
+		    A[i] = A[j];
+		    A[j] = tmp;
+		}
+	    }
+	    long tmp = A[i+1];
+	    A[i+1] = A[r];
+	    A[r] = tmp;
+
+	    qsort(A,p,i);
+	    qsort(A,i+2,r);
+	}
+    }
+
+
+    /*
+     * recursive worker function for quicksort of long arrays with early abort
+     */
+    private static void qsortImproved(long [] A, int p, int r) {
+	if (r-p+1 >= quicksortCutoff) {
+	    // deterministic partitioning --- median of 3 strategy
+	    int mid = (r + p) / 2;
+
+	    if (A[p] > A[mid]) {
+		long tmp = A[p];
+		A[p] = A[mid];
+		A[mid] = tmp;
+	    }
+
+	    if (A[mid] > A[r]) {
+		long tmp = A[mid];
+		A[mid] = A[r];
+		A[r] = tmp;
+	    }
+
+	    if (A[p] > A[mid]) {
+		long tmp = A[p];
+		A[p] = A[mid];
+		A[mid] = tmp;
+	    }
+
+	    long tmp = A[mid];
+	    A[mid] = A[r-1];
+	    A[r-1] = tmp;
+
+	    long x = A[r-1];
+	    int i=p;
+	    for (int j=p+1; j<r-1; ++j) {
+		if (A[j] <= x) {
+		    ++i;
+		    tmp = A[i];
+		    A[i] = A[j];
+		    A[j] = tmp;
+		}
+	    }
+	    tmp = A[i+1];
+	    A[i+1] = A[r-1];
+	    A[r-1] = tmp;
+
+	    qsortImproved(A,p,i);
+	    qsortImproved(A,i+2,r);
+	}
+    }
+
+
+    /*
+     * Sorts long array A[p..r] using insertion sort
+     */
+    private static void isort(long [] A, int p, int r) {
+	for (int i=p+1; i<=r; ++i) {
+	    int j = i;
+	    long tmp = A[i];
+	    while (j > p && tmp < A[j-1]) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+    /**
+     * Sorts the input array using merge sort
+     *
+     * @param A short array
+     */
+    public static void mergeSort(short [] A)
+    {
+	short [] B = new short[A.length];
+	msort(A,0,A.length-1,B);
+    }
+
+
+    /**
+     * Sorts the input array using heap sort
+     *
+     * @param A short array
+     */
+    public static void heapSort(short [] A)
+    {
+	hsort(A,0,A.length);
+    }
+
+
+    /**
+     * Sorts the input array using quicksort with deterministic partitioning (using the last
+     * element as the pivot)
+     *
+     * @param A short array
+     */
+    public static void quickSort(short [] A)
+    {
+	qsort(A,0,A.length-1);
+    }
+
+
+    /**
+     * Sorts the input array using quicksort with a "median-of-3" pivot (the median of the
+     * first, middle and last entries) and the early abort strategy: subarrays of fewer than
+     * 128 entries (or the calibrated quicksort cutoff) are left unsorted, and the array is
+     * finished by an insertion sort pass
+     *
+     * @param A short array
+     */
+    public static void quicksortImproved(short [] A)
+    {
+	// partial recursive quicksort with early abort
+	qsortImproved(A,0,A.length-1);
+
+	// insertion sort on nearly-sorted array A
+	isort(A,0,A.length-1);
+    }
+
+
+    /*
+     * Recursive worker function for merge sort of short arrays
+     */
+    private static void msort(short [] A, int l, int r, short [] B) {
+	if (l < r) {
+	    int mid = (r+l) / 2;
+	    msort(A,l,mid,B);
+	    msort(A,mid+1,r,B);
+
+	    // merge into array B, copy back to A
+	    int i1 = l;
+	    int i2 = mid+1;
+	    int j = l;
+	    while (i1 <= mid && i2 <= r) {
+		if (A[i1] <= A[i2]) {
+		    B[j] = A[i1];
+		    ++i1;
+		}
+		else {
+		    B[j] = A[i2];
+		    ++i2;
+		}
+		++j;
+	    }
+	    while (i1 <= mid) {
+		B[j] = A[i1];
+		++i1;
+		++j;
+	    }
+	    while (i2 <= r) {
+		B[j] = A[i2];
+		++i2;
+		++j;
+	    }
+
+	    for (j=l; j<=r; ++j)
+		A[j] = B[j];
+	}
+    }
+
+
+    /*
+     * Worker function for heap sort of short arrays: sorts the n entries A[p..p+n-1]
+     */
+    private static void hsort(short [] A, int p, int n) {
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (int i=(n >> 1) - 1; i>=0; --i)
+	    siftDown(A,p,i,n);
+
+	for (int i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i
+	    short temp = A[p];
+	    A[p] = A[p+i];
+	    A[p+i] = temp;
+
+	    // MaxHeapify(A,0) to re-establish max heap of size i
+	    siftDown(A,p,0,i);
+	}
+    }
+
+
+    /*
+     * MaxHeapify(A,j) on the heap of size n stored in short array A[p..p+n-1]
+     */
+    private static void siftDown(short [] A, int p, int j, int n) {
+	short x = A[p+j];
+	while (true) {
+	    int l = (j << 1) + 1;
+	    if (l >= n)
+		break;
+	    int largest = l;
+	    if (l+1 < n && A[p+l+1] > A[p+l])
+		largest = l+1;
+	    if (A[p+largest] <= x)
+		break;
+	    A[p+j] = A[p+largest];
+	    j = largest;
+	}
+	A[p+j] = x;
+    }
+
+
+    /*
+     * recursive worker function for quicksort of short arrays
+     */
+    private static void qsort(short [] A, int p, int r) {
+	if (p < r) {
+	    // deterministic partitioning
+	    short x = A[r];
+	    int i=p-1;
+	    for (int j=p; j<r; ++j) {
+		if (A[j] <= x) {
+		    ++i;
+		    short tmp = A[i];
+		    A[i] = A[j];
+		    A[j] = tmp;
+		}
+	    }
+	    short tmp = A[i+1];
+	    A[i+1] = A[r];
+	    A[r] = tmp;
+
+	    qsort(A,p,i);
+	    qsort(A,i+2,r);
+	}
+    }
+
+
+    /*
+     * recursive worker function for quicksort of short arrays with early abort
+     */
+    private static void qsortImproved(short [] A, int p, int r) {
+	if (r-p+1 >= quicksortCutoff) {
+	    // deterministic partitioning --- median of 3 strategy
+	    int mid = (r + p) / 2;
+
+	    if (A[p] > A[mid]) {
+		short tmp = A[p];
+		A[p] = A[mid];
+		A[mid] = tmp;
+	    }
+
+	    if (A[mid] > A[r]) {
+		short tmp = A[mid];
+		A[mid] = A[r];
+		A[r] = tmp;
+	    }
+
+	    if (A[p] > A[mid]) {
+		short tmp = A[p];
+		A[p] = A[mid];
+		A[mid] = tmp;
+	    }
+
+	    short tmp = A[mid];
+	    A[mid] = A[r-1];
+	    A[r-1] = tmp;
+
+	    short x = A[r-1];
+	    int i=p;
+	    for (int j=p+1; j<r-1; ++j) {
+		if (A[j] <= x) {
+		    ++i;
+		    tmp = A[i];
+		    A[i] = A[j];
+		    A[j] = tmp;
+		}
+	    }
+	    tmp = A[i+1];
+	    A[i+1] = A[r-1];
+	    A[r-1] = tmp;
+
+	    qsortImproved(A,p,i);
+	    qsortImproved(A,i+2,r);
+	}
+    }
+
+
+    /*
+     * Sorts short array A[p..r] using insertion sort
+     */
+    private static void isort(short [] A, int p, int r) {
+	for (int i=p+1; i<=r; ++i) {
+	    int j = i;
+	    short tmp = A[i];
+	    while (j > p && tmp < A[j-1]) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+    /**
+     * Sorts the input array using merge sort.
+     * NaN values are placed after all other values and -0.0 before 0.0, as in
+     * <code>Double.compare</code>.
+     *
+     * @param A double array
+     */
+    public static void mergeSort(double [] A)
+    {
+	int n = moveNaNs(A);
+	double [] B = new double[n];
+	msort(A,0,n-1,B);
+	orderZeros(A,n);
+    }
+
 
     /**
-     * Sorts the input array using Java's implementation of quicksort
+     * Sorts the input array using heap sort.
+     * NaN values are placed after all other values and -0.0 before 0.0, as in
+     * <code>Double.compare</code>.
      *
-     * @param A integer array
+     * @param A double array
      */
-
-    public static void javaSort(int [] A)
+    public static void heapSort(double [] A)
     {
-	sort(A);
+	int n = moveNaNs(A);
+	hsort(A,0,n);
+	orderZeros(A,n);
     }
 
 
-
     /**
-     * Sorts the input array using the insertion sort algorithm
+     * Sorts the input array using quicksort with deterministic partitioning (using the last
+     * element as the pivot).
+     * NaN values are placed after all other values and -0.0 before 0.0, as in
+     * <code>Double.compare</code>.
      *
-     * @param A integer array
+     * @param A double array
      */
-
-    public static void insertionSort(int [] A)
+    public static void quickSort(double [] A)
     {
-	for (int i=1; i<A.length; ++i) {
-	    int j = i;
-	    int tmp = A[i];
-	    while (j > 0 && tmp < A[j-1]) {
-		A[j] = A[j-1];
-		--j;
-	    }
-	    A[j] = tmp;
-	}
+	int n = moveNaNs(A);
+	qsort(A,0,n-1);
+	orderZeros(A,n);
     }
 
 
-
     /**
-     * Sorts the input array using merge sort
+     * Sorts the input array using quicksort with a "median-of-3" pivot (the median of the
+     * first, middle and last entries) and the early abort strategy: subarrays of fewer than
+     * 128 entries (or the calibrated quicksort cutoff) are left unsorted, and the array is
+     * finished by an insertion sort pass.
+     * NaN values are placed after all other values and -0.0 before 0.0, as in
+     * <code>Double.compare</code>.
      *
-     * @param A integer array
+     * @param A double array
      */
-    public static void  mergeSort(int [] A)
+    public static void quicksortImproved(double [] A)
     {
-	int [] B = new int[A.length];
-	msort(A,0,A.length-1,B);
+	int n = moveNaNs(A);
+	// partial recursive quicksort with early abort
+	qsortImproved(A,0,n-1);
+
+	// insertion sort on nearly-sorted array A
+	isort(A,0,n-1);
+	orderZeros(A,n);
     }
 
 
     /*
-     * Recursive worker function for merge sort
+     * Recursive worker function for merge sort of double arrays
      */
-    private static void msort(int [] A, int l, int r, int [] B) {
+    private static void msort(double [] A, int l, int r, double [] B) {
 	if (l < r) {
 	    int mid = (r+l) / 2;
 	    msort(A,l,mid,B);
@@ -144,7 +2845,7 @@ public class Sorting {
 	    // merge into array B, copy back to A
 	    int i1 = l;
 	    int i2 = mid+1;
-	    int j = 0;
+	    int j = l;
 	    while (i1 <= mid && i2 <= r) {
 		if (A[i1] <= A[i2]) {
 		    B[j] = A[i1];
@@ -156,131 +2857,81 @@ public class Sorting {
 		}
 		++j;
 	    }
-
 	    while (i1 <= mid) {
 		B[j] = A[i1];
 		++i1;
 		++j;
 	    }
-
 	    while (i2 <= r) {
 		B[j] = A[i2];
 		++i2;
 		++j;
 	    }
 
-	    i1 = l;
-	    for (j=0; j<r-l+1; ++j) {
-		A[i1] = B[j];
-		++i1;
-	    }
+	    for (j=l; j<=r; ++j)
+		A[j] = B[j];
 	}
     }
 
 
-
-
-    /**
-     * Sorts the input array using heap sort
-     *
-     * @param A integer array
+    /*
+     * Worker function for heap sort of double arrays: sorts the n entries A[p..p+n-1]
      */
-    public static void heapSort(int [] A)
-    {
-	int n = A.length;
-	if (n > 1) {
-  	  // BuildMaxHeap - convert A to a representation of a MaxHeap
-	  for (int i=(n >> 1) -1; i>=0; --i) {
-	    // MaxHeapify(A,i) to re-establish max heap subheap A[i]
-	    int j = i;
-	    boolean swapped = true;
-            while (swapped) {
-	      int l = (j << 1) + 1;
-              int r = (j << 1) + 2;
-	      int largest = j;
-	      swapped = false;
-
-              if (l < n && A[l] > A[j])
-                largest = l;
-	      if (r < n && A[r] > A[largest])
-                largest = r;
-
-	      if (largest != j) {
-		int temp = A[j];
-		A[j] = A[largest];
-		A[largest] = temp;
-                swapped = true;
-              }
-
-	      j = largest;
-            }
-          }
-
-	  for (int i=n-1; i>0; --i) {
-	    // DeleteMax - remove largest element of heap, copy to location i
-	    int temp = A[0];
-	    A[0] = A[i];
-            A[i] = temp;
-
-	    // MaxHeapify(A,0) to re-establish max heap of size i-1
-	    int j = 0;
-	    boolean swapped = true;
-            while (swapped) {
-	      int l = (j << 1) + 1;
-              int r = (j << 1) + 2;
-	      int largest = j;
-	      swapped = false;
-
-              if (l < i && A[l] > A[j])
-                largest = l;
-	      if (r < i && A[r] > A[largest])
-                largest = r;
+    private static void hsort(double [] A, int p, int n) {
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (int i=(n >> 1) - 1; i>=0; --i)
+	    siftDown(A,p,i,n);
 
-	      if (largest != j) {
-		temp = A[j];
-		A[j] = A[largest];
-		A[largest] = temp;
-                swapped = true;
-              }
+	for (int i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i
+	    double temp = A[p];
+	    A[p] = A[p+i];
+	    A[p+i] = temp;
 
-	      j = largest;
-            }
-	  }
+	    // MaxHeapify(A,0) to re-establish max heap of size i
+	    siftDown(A,p,0,i);
 	}
     }
 
 
-
-    /**
-     * Sorts the input array using quicksort with deterministic partitioning (using the last
-     * element as the pivot)
-     *
-     * @param A integer array
+    /*
+     * MaxHeapify(A,j) on the heap of size n stored in double array A[p..p+n-1]
      */
-
-    public static void quickSort(int [] A)
-    {
-	qsort(A,0,A.length-1);
+    private static void siftDown(double [] A, int p, int j, int n) {
+	double x = A[p+j];
+	while (true) {
+	    int l = (j << 1) + 1;
+	    if (l >= n)
+		break;
+	    int largest = l;
+	    if (l+1 < n && A[p+l+1] > A[p+l])
+		largest = l+1;
+	    if (A[p+largest] <= x)
+		break;
+	    A[p+j] = A[p+largest];
+	    j = largest;
+	}
+	A[p+j] = x;
     }
 
 
-    /**
-     * recursive worker function for quicksort
+    /*
+     * recursive worker function for quicksort of double arrays
      */
-    private static void qsort(int [] A, int p, int r) {
+    private static void qsort(double [] A, int p, int r) {
 	if (p < r) {
 	    // deterministic partitioning
-	    int x = A[r];
+	    double x = A[r];
 	    int i=p-1;
 	    for (int j=p; j<r; ++j) {
 		if (A[j] <= x) {
 		    ++i;
-		    int tmp = A[i];
+		    double tmp = A[i];
 		    A[i] = A[j];
 		    A[j] = tmp;
 		}
 	    }
-	    int tmp = A[i+1];
+	    double tmp = A[i+1];
 	    A[i+1] = A[r];
 	    A[r] = tmp;
 
@@ -290,86 +2941,37 @@ public class Sorting {
     }
 
 
-
-
-    /**
-     * Sorts the input array using quicksort, the early abort strategy, and a "median-of-3"
-     * pivot selection strategy.  The pivot is defined to be the median of the first entry,
-     * the last, and the element in the middle of the array.  Once the pivot entry is chosen,
-     * these three elements are arranged so that the smallest is at the beginning of the array,
-     * the largest is at the end, and the pivot is second last, allowing partition to start at
-     * index 1 (instead of 0) and finish one position earlier.
-     *
-     * @param A integer array
+    /*
+     * recursive worker function for quicksort of double arrays with early abort
      */
-
-    public static void quicksortImproved(int [] A)
-    {
-        // partial recursive quicksort with early abort
-	qsortImproved(A,0,A.length-1);
-
-        // insertion sort on nearly-sorted array A
-	for (int i=1; i<A.length; ++i) {
-	    int j = i;
-	    int tmp = A[i];
-	    while (j > 0 && tmp < A[j-1]) {
-		A[j] = A[j-1];
-		--j;
-	    }
-	    A[j] = tmp;
-	}
-    }
-
-
-    private static void medianof3(int [] A, int i1, int i2, int i3) {
-	if (A[i1] > A[i2]) {
-	    int tmp = A[i1];
-	    A[i1] = A[i2];
-	    A[i2] = tmp;
-	}
-
-	if (A[i2] > A[i3]) {
-	    int tmp = A[i2];
-	    A[i2] = A[i3];
-	    A[i3] = tmp;
-	}
-
-	if (A[i1] > A[i2]) {
-	    int tmp = A[i1];
-	    A[i1] = A[i2];
-	    A[i2] = tmp;
-	}
-    }
-
-
-    private static void qsortImproved(int [] A, int p, int r) {
-	if (r-p+1 >= 128) {
+    private static void qsortImproved(double [] A, int p, int r) {
+	if (r-p+1 >= quicksortCutoff) {
 	    // deterministic partitioning --- median of 3 strategy
 	    int mid = (r + p) / 2;
 
 	    if (A[p] > A[mid]) {
-		int tmp = A[p];
+		double tmp = A[p];
 		A[p] = A[mid];
 		A[mid] = tmp;
 	    }
 
 	    if (A[mid] > A[r]) {
-		int tmp = A[mid];
+		double tmp = A[mid];
 		A[mid] = A[r];
 		A[r] = tmp;
 	    }
 
 	    if (A[p] > A[mid]) {
-		int tmp = A[p];
+		double tmp = A[p];
 		A[p] = A[mid];
 		A[mid] = tmp;
 	    }
 
-	    int tmp = A[mid];
+	    double tmp = A[mid];
 	    A[mid] = A[r-1];
 	    A[r-1] = tmp;
 
-	    int x = A[r-1];
+	    double x = A[r-1];
 	    int i=p;
 	    for (int j=p+1; j<r-1; ++j) {
 		if (A[j] <= x) {
@@ -389,6 +2991,300 @@ public class Sorting {
     }
 
 
+    /*
+     * Sorts double array A[p..r] using insertion sort
+     */
+    private static void isort(double [] A, int p, int r) {
+	for (int i=p+1; i<=r; ++i) {
+	    int j = i;
+	    double tmp = A[i];
+	    while (j > p && tmp < A[j-1]) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+    /*
+     * Moves the NaN values of A to the end of the array and returns the number of other
+     * values, which then occupy A[0..n-1]
+     */
+    private static int moveNaNs(double [] A) {
+	int n = A.length;
+	int i = 0;
+	while (i < n) {
+	    if (A[i] != A[i]) {
+		--n;
+		double tmp = A[i];
+		A[i] = A[n];
+		A[n] = tmp;
+	    }
+	    else
+		++i;
+	}
+	return n;
+    }
+
+
+    /*
+     * Reorders the zeros of the sorted array A[0..n-1], which compare equal, so that the
+     * negative zeros come first
+     */
+    private static void orderZeros(double [] A, int n) {
+	// first index with A[lo] >= 0.0
+	int lo = 0;
+	int hi = n;
+	while (lo < hi) {
+	    int m = (lo+hi) >>> 1;
+	    if (A[m] < 0.0)
+		lo = m+1;
+	    else
+		hi = m;
+	}
+
+	int negative = 0;
+	int end = lo;
+	while (end < n && A[end] == 0.0) {
+	    if (Double.doubleToRawLongBits(A[end]) < 0)
+		++negative;
+	    ++end;
+	}
+
+	for (int i=lo; i<end; ++i)
+	    A[i] = i < lo+negative ? -0.0 : 0.0;
+    }
+
+
+
+    /**
+     * Returns the permutation that sorts the input array, without moving its entries:
+     * an array P such that A[P[0]] <= A[P[1]] <= ... <= A[P[n-1]].  Equal keys keep their
+     * original order.  Each key is packed with its index into one long (key in the upper
+     * 32 bits, index in the lower 32), the packed values are sorted with the long version
+     * of merge sort, and the indices are read back from the lower halves.
+     *
+     * @return array of indices of A in sorted order
+     * @param  A integer array
+     */
+    public static int [] argsort(int [] A)
+    {
+	int n = A.length;
+	long [] K = new long[n];
+	for (int i=0; i<n; ++i)
+	    K[i] = ((long) A[i] << 32) | i;
+
+	mergeSort(K);
+
+	int [] P = new int[n];
+	for (int i=0; i<n; ++i)
+	    P[i] = (int) K[i];
+	return P;
+    }
+
+
+    /*
+     * Enforces the precondition that P is a permutation of 0..n-1.  The range of every entry
+     * is checked first; duplicates are then found by marking entries as seen by
+     * complementing them, and P is restored before returning.
+     */
+    private static void checkPermutation(int [] P, int n) {
+	if (P == null)
+	    throw new IllegalArgumentException("Permutation P must not be null");
+	if (P.length != n)
+	    throw new IllegalArgumentException("Permutation has " + P.length + " entries, array has " + n);
+
+	for (int i=0; i<n; ++i)
+	    if (P[i] < 0 || P[i] >= n)
+		throw new IllegalArgumentException("P[" + i + "] = " + P[i] + " is not in the range 0.." + (n-1));
+
+	boolean valid = true;
+	for (int i=0; i<n && valid; ++i) {
+	    int k = P[i] < 0 ? ~P[i] : P[i];
+	    if (P[k] < 0)
+		valid = false;
+	    else
+		P[k] = ~P[k];
+	}
+
+	for (int i=0; i<n; ++i)
+	    if (P[i] < 0)
+		P[i] = ~P[i];
+
+	if (!valid)
+	    throw new IllegalArgumentException("P is not a permutation of 0.." + (n-1));
+    }
+
+
+    /*
+     * Enforces the precondition that a parallel array of the given length has n entries
+     */
+    private static void checkParallel(int length, int n) {
+	if (length != n)
+	    throw new IllegalArgumentException("Parallel array has " + length + " entries, need " + n);
+    }
+
+
+
+    /**
+     * Rearranges X and each of the further given int arrays in place so that its new entry
+     * i is its old entry P[i].  Applied to the result of <code>argsort</code>, this sorts
+     * the key array together with parallel arrays of int values.  P and the lengths of all
+     * arrays are checked before any entry is moved.  The permutation is then applied one
+     * cycle at a time, marking visited entries of P by complementing them, so no extra
+     * array is allocated; P is restored before returning.
+     *
+     * @param  P permutation of 0..n-1
+     * @param  X int array of length n
+     * @param  more further int arrays of length n
+     * @throws IllegalArgumentException if an array has a different length from P, or P is
+     *         not a permutation
+     */
+    public static void applyPermutation(int [] P, int [] X, int [] ... more)
+    {
+	checkPermutation(P, X.length);
+	for (int [] Y : more)
+	    checkParallel(Y.length, X.length);
+
+	permute(P, X);
+	for (int [] Y : more)
+	    permute(P, Y);
+    }
+
+
+    /*
+     * Applies the permutation P, already checked, to X
+     */
+    private static void permute(int [] P, int [] X) {
+	for (int i=0; i<X.length; ++i) {
+	    if (P[i] < 0)
+		continue;
+
+	    // move the cycle containing i: X[j] <- X[P[j]]
+	    int tmp = X[i];
+	    int j = i;
+	    while (true) {
+		int k = P[j];
+		P[j] = ~k;
+		if (k == i) {
+		    X[j] = tmp;
+		    break;
+		}
+		X[j] = X[k];
+		j = k;
+	    }
+	}
+
+	for (int i=0; i<X.length; ++i)
+	    P[i] = ~P[i];
+    }
+
+
+
+    /**
+     * Rearranges X and each of the further given long arrays in place so that its new
+     * entry i is its old entry P[i], in the same way as the int version of
+     * <code>applyPermutation</code>.
+     *
+     * @param  P permutation of 0..n-1
+     * @param  X long array of length n
+     * @param  more further long arrays of length n
+     * @throws IllegalArgumentException if an array has a different length from P, or P is
+     *         not a permutation
+     */
+    public static void applyPermutation(int [] P, long [] X, long [] ... more)
+    {
+	checkPermutation(P, X.length);
+	for (long [] Y : more)
+	    checkParallel(Y.length, X.length);
+
+	permute(P, X);
+	for (long [] Y : more)
+	    permute(P, Y);
+    }
+
+
+    /*
+     * Applies the permutation P, already checked, to X
+     */
+    private static void permute(int [] P, long [] X) {
+	for (int i=0; i<X.length; ++i) {
+	    if (P[i] < 0)
+		continue;
+
+	    // move the cycle containing i: X[j] <- X[P[j]]
+	    long tmp = X[i];
+	    int j = i;
+	    while (true) {
+		int k = P[j];
+		P[j] = ~k;
+		if (k == i) {
+		    X[j] = tmp;
+		    break;
+		}
+		X[j] = X[k];
+		j = k;
+	    }
+	}
+
+	for (int i=0; i<X.length; ++i)
+	    P[i] = ~P[i];
+    }
+
+
+
+    /**
+     * Rearranges X and each of the further given double arrays in place so that its new
+     * entry i is its old entry P[i], in the same way as the int version of
+     * <code>applyPermutation</code>.
+     *
+     * @param  P permutation of 0..n-1
+     * @param  X double array of length n
+     * @param  more further double arrays of length n
+     * @throws IllegalArgumentException if an array has a different length from P, or P is
+     *         not a permutation
+     */
+    public static void applyPermutation(int [] P, double [] X, double [] ... more)
+    {
+	checkPermutation(P, X.length);
+	for (double [] Y : more)
+	    checkParallel(Y.length, X.length);
+
+	permute(P, X);
+	for (double [] Y : more)
+	    permute(P, Y);
+    }
+
+
+    /*
+     * Applies the permutation P, already checked, to X
+     */
+    private static void permute(int [] P, double [] X) {
+	for (int i=0; i<X.length; ++i) {
+	    if (P[i] < 0)
+		continue;
+
+	    // move the cycle containing i: X[j] <- X[P[j]]
+	    double tmp = X[i];
+	    int j = i;
+	    while (true) {
+		int k = P[j];
+		P[j] = ~k;
+		if (k == i) {
+		    X[j] = tmp;
+		    break;
+		}
+		X[j] = X[k];
+		j = k;
+	    }
+	}
+
+	for (int i=0; i<X.length; ++i)
+	    P[i] = ~P[i];
+    }
+
+
 
 
     /**
@@ -531,6 +3427,66 @@ public class Sorting {
                     System.out.println("\n");
                 }
 
+
+
+		// sort long, short and double copies of A using the overloads for those types
+		String [] names = { "merge sort", "heap sort", "deterministic quicksort", "improved quicksort" };
+
+		long [] Ljava = new long[n];
+		for (int j=0; j<A.length; ++j)
+		    Ljava[j] = (long) A[j] * 65537;
+		long [][] Llong = new long[4][];
+		for (int k=0; k<4; ++k)
+		    Llong[k] = Ljava.clone();
+		sort(Ljava);
+		mergeSort(Llong[0]);
+		heapSort(Llong[1]);
+		quickSort(Llong[2]);
+		quicksortImproved(Llong[3]);
+
+		// check whether sorted arrays are equal
+		for (int k=0; k<4; ++k)
+		    if (!testArrays(Ljava,Llong[k]))
+			System.out.println("ERROR:  sorted long arrays using java's sort function and "
+					   + names[k] + " are not the same");
+
+		short [] Sjava = new short[n];
+		for (int j=0; j<A.length; ++j)
+		    Sjava[j] = (short) A[j];
+		short [][] Sshort = new short[4][];
+		for (int k=0; k<4; ++k)
+		    Sshort[k] = Sjava.clone();
+		sort(Sjava);
+		mergeSort(Sshort[0]);
+		heapSort(Sshort[1]);
+		quickSort(Sshort[2]);
+		quicksortImproved(Sshort[3]);
+
+		// check whether sorted arrays are equal
+		for (int k=0; k<4; ++k)
+		    if (!testArrays(Sjava,Sshort[k]))
+			System.out.println("ERROR:  sorted short arrays using java's sort function and "
+					   + names[k] + " are not the same");
+
+		// every 7th entry is NaN and every 5th and 6th a zero of either sign
+		double [] Djava = new double[n];
+		for (int j=0; j<A.length; ++j)
+		    Djava[j] = j % 7 == 3 ? Double.NaN : j % 5 == 1 ? -0.0 : j % 6 == 2 ? 0.0 : A[j] / 1024.0;
+		double [][] Ddouble = new double[4][];
+		for (int k=0; k<4; ++k)
+		    Ddouble[k] = Djava.clone();
+		sort(Djava);
+		mergeSort(Ddouble[0]);
+		heapSort(Ddouble[1]);
+		quickSort(Ddouble[2]);
+		quicksortImproved(Ddouble[3]);
+
+		// check whether sorted arrays are equal, including the order of -0.0 and 0.0
+		for (int k=0; k<4; ++k)
+		    if (!testArrays(Djava,Ddouble[k]))
+			System.out.println("ERROR:  sorted double arrays using java's sort function and "
+					   + names[k] + " are not the same");
+
 	    }
     }
 }
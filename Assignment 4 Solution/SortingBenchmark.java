@@ -0,0 +1,360 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static java.lang.Integer.parseInt;
+import java.lang.IllegalArgumentException;
+
+/**
+ * Benchmark harness for the sorting algorithms in <code>Sorting</code>.  Unlike the
+ * loops in A4Q5 and A4Q6, every configuration (array size, input distribution,
+ * algorithm) is measured in a freshly forked JVM, is preceded by warmup iterations
+ * whose results are discarded, and only the call to the sorting function is timed
+ * (the input is copied into the work array outside the timed region).  For each
+ * configuration the throughput (sorts per second, with its standard deviation over
+ * the measured iterations) and the allocation rate of the sorting thread are reported.
+ * For the algorithms in <code>COUNTED</code>, the number of key comparisons made by one
+ * sort is reported as well; it is taken from the counted copies in
+ * <code>CountingSorts</code>, so the timed sorts are not instrumented.
+ *
+ * @version 1.0
+ */
+public class SortingBenchmark {
+
+    /** names of the algorithms that can be benchmarked */
+    public static final String [] ALGORITHMS = {
+	"javaSort", "insertionSort", "mergeSort", "parallelMergeSort", "naturalMergeSort",
+	"pooledNaturalMergeSort", "bottomUpMergeSort", "pooledMergeSort", "inPlaceMergeSort",
+	"heapSort", "bottomUpHeapSort", "quaternaryHeapSort", "quickSort", "quicksortImproved",
+	"parallelQuicksortImproved", "introQuickSort", "introQuicksortImproved",
+	"quicksort3Way", "dualPivotQuicksort", "blockQuicksort", "networkQuicksort",
+	"vectorQuicksort", "pooledVectorQuicksort", "radixSort", "pooledRadixSort",
+	"parallelRadixSort", "americanFlagSort", "countingSort"
+    };
+
+    /** algorithms whose key comparisons are counted by CountingSorts */
+    public static final String [] COUNTED = {
+	"quicksortImproved", "dualPivotQuicksort"
+    };
+
+    /** names of the input distributions that can be generated */
+    public static final String [] DISTRIBUTIONS = {
+	"random", "sorted", "reversed", "binary"
+    };
+
+    /** used to measure the number of bytes allocated by the sorting thread */
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** minimum running time of a single warmup or measurement iteration */
+    private static final long ITERATION_NANOS = 1000000000L;
+
+
+    /**
+     * Sorts the input array using the named algorithm from <code>Sorting</code>.
+     *
+     * @param  name algorithm name (one of <code>ALGORITHMS</code>)
+     * @param  A integer array
+     * @throws IllegalArgumentException if name is not a known algorithm
+     */
+    public static void sort(String name, int [] A)
+    {
+	switch (name) {
+	case "javaSort":          Sorting.javaSort(A); break;
+	case "insertionSort":     Sorting.insertionSort(A); break;
+	case "mergeSort":         Sorting.mergeSort(A); break;
+	case "parallelMergeSort": Sorting.parallelMergeSort(A); break;
+	case "naturalMergeSort":  Sorting.naturalMergeSort(A); break;
+	case "pooledNaturalMergeSort": Sorting.naturalMergeSort(A,Sorting.scratchArray(A.length)); break;
+	case "bottomUpMergeSort": Sorting.bottomUpMergeSort(A); break;
+	case "pooledMergeSort":   Sorting.mergeSort(A,Sorting.scratchArray(A.length)); break;
+	case "inPlaceMergeSort":  Sorting.inPlaceMergeSort(A); break;
+	case "heapSort":          Sorting.heapSort(A); break;
+	case "bottomUpHeapSort":  Sorting.bottomUpHeapSort(A); break;
+	case "quaternaryHeapSort": Sorting.quaternaryHeapSort(A); break;
+	case "quickSort":         Sorting.quickSort(A); break;
+	case "quicksortImproved": Sorting.quicksortImproved(A); break;
+	case "parallelQuicksortImproved": Sorting.parallelQuicksortImproved(A); break;
+	case "introQuickSort":    Sorting.introQuickSort(A); break;
+	case "introQuicksortImproved": Sorting.introQuicksortImproved(A); break;
+	case "quicksort3Way":     Sorting.quicksort3Way(A); break;
+	case "dualPivotQuicksort": Sorting.dualPivotQuicksort(A); break;
+	case "blockQuicksort":    Sorting.blockQuicksort(A); break;
+	case "networkQuicksort":  Sorting.networkQuicksort(A); break;
+	case "vectorQuicksort":   Sorting.vectorQuicksort(A); break;
+	case "pooledVectorQuicksort": Sorting.vectorQuicksort(A,Sorting.scratchArray(A.length)); break;
+	case "radixSort":         Sorting.radixSort(A); break;
+	case "pooledRadixSort":   Sorting.radixSort(A,Sorting.scratchArray(A.length)); break;
+	case "parallelRadixSort": Sorting.parallelRadixSort(A); break;
+	case "americanFlagSort":  Sorting.americanFlagSort(A); break;
+	case "countingSort":      Sorting.countingSort(A); break;
+	default:
+	    throw new IllegalArgumentException("Unknown algorithm: " + name);
+	}
+    }
+
+
+    /**
+     * Generates an array of n integers drawn from the named distribution.
+     * <ul>
+     *  <li> random (uniformly random int values, as in A4Q5)
+     *  <li> sorted (0, 1, ..., n-1, as in A4Q6)
+     *  <li> reversed (n-1, n-2, ..., 0)
+     *  <li> binary (uniformly random 0 and 1 values, as in A5Q5)
+     * </ul>
+     *
+     * @return array containing n values
+     * @param  name distribution name (one of <code>DISTRIBUTIONS</code>)
+     * @param  n desired size of the array
+     * @param  seed seed for the random number generator
+     * @throws IllegalArgumentException if name is not a known distribution or n <= 0
+     */
+    public static int [] generate(String name, int n, long seed)
+    {
+	if (n <= 0)
+	    throw new IllegalArgumentException("Illegal array size: " + n);
+
+	int [] A = new int[n];
+	Random R = new Random(seed);
+	switch (name) {
+	case "random":
+	    for (int i=0; i<n; ++i)
+		A[i] = R.nextInt();
+	    break;
+	case "sorted":
+	    for (int i=0; i<n; ++i)
+		A[i] = i;
+	    break;
+	case "reversed":
+	    for (int i=0; i<n; ++i)
+		A[i] = n-1-i;
+	    break;
+	case "binary":
+	    for (int i=0; i<n; ++i)
+		A[i] = R.nextInt(2);
+	    break;
+	default:
+	    throw new IllegalArgumentException("Unknown distribution: " + name);
+	}
+	return A;
+    }
+
+
+    /*
+     * Returns the number of bytes allocated so far by the current thread, or -1 if the
+     * JVM does not support allocation measurement.
+     */
+    private static long allocatedBytes()
+    {
+	if (THREADS instanceof com.sun.management.ThreadMXBean) {
+	    com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) THREADS;
+	    if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+		return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	return -1;
+    }
+
+
+    /*
+     * Runs one benchmark configuration in the current JVM and prints a single result
+     * line.  Each iteration repeatedly copies the source array into a work array
+     * (untimed) and sorts it (timed) until ITERATION_NANOS of sorting time have elapsed.
+     */
+    private static void runFork(int n, String dist, String alg, int warmups, int iterations)
+    {
+	int [] source = generate(dist, n, 331L);
+	int [] work = new int[n];
+
+	// check the result once against Java's sort before timing anything
+	int [] expected = source.clone();
+	Sorting.javaSort(expected);
+	System.arraycopy(source, 0, work, 0, n);
+	sort(alg, work);
+	if (!Sorting.testArrays(expected, work)) {
+	    System.out.println("ERROR:  sorted arrays using java's sort function and " + alg
+			       + " are not the same");
+	    System.exit(2);
+	}
+
+	// both counted sorts are deterministic, so one untimed sort gives the count
+	String comparisons = "-";
+	if (Arrays.asList(COUNTED).contains(alg)) {
+	    System.arraycopy(source, 0, work, 0, n);
+	    long count = alg.equals("quicksortImproved") ? CountingSorts.quicksortImproved(work)
+		: CountingSorts.dualPivotQuicksort(work);
+	    if (!Sorting.testArrays(expected, work)) {
+		System.out.println("ERROR:  sorted arrays using java's sort function and the counted "
+				   + alg + " are not the same");
+		System.exit(2);
+	    }
+	    comparisons = Long.toString(count);
+	}
+
+	double [] opsPerSec = new double[iterations];
+	long totalOps = 0;
+	long totalNanos = 0;
+	long totalBytes = 0;
+
+	for (int it=0; it<warmups+iterations; ++it) {
+	    long ops = 0;
+	    long nanos = 0;
+	    long bytes = 0;
+	    while (nanos < ITERATION_NANOS) {
+		System.arraycopy(source, 0, work, 0, n);
+
+		long a0 = allocatedBytes();
+		long t0 = System.nanoTime();
+		sort(alg, work);
+		long t1 = System.nanoTime();
+		long a1 = allocatedBytes();
+
+		nanos += t1 - t0;
+		bytes += a1 - a0;
+		++ops;
+	    }
+
+	    if (it >= warmups) {
+		opsPerSec[it-warmups] = ops * 1e9 / nanos;
+		totalOps += ops;
+		totalNanos += nanos;
+		totalBytes += bytes;
+	    }
+	}
+
+	double mean = 0;
+	for (int i=0; i<iterations; ++i)
+	    mean += opsPerSec[i];
+	mean /= iterations;
+
+	double var = 0;
+	for (int i=0; i<iterations; ++i)
+	    var += (opsPerSec[i] - mean) * (opsPerSec[i] - mean);
+	double stddev = iterations > 1 ? Math.sqrt(var / (iterations-1)) : 0;
+
+	String allocPerOp = "n/a";
+	String allocRate = "n/a";
+	if (allocatedBytes() >= 0) {
+	    allocPerOp = String.format("%.0f", (double) totalBytes / totalOps);
+	    allocRate = String.format("%.1f", totalBytes / 1048576.0 / (totalNanos / 1e9));
+	}
+
+	System.out.println(String.format("%-20s %-10s %10d %14.3f %12.3f %14s %12s %14s",
+					 alg, dist, n, mean, stddev, allocPerOp, allocRate, comparisons));
+    }
+
+
+    /*
+     * Runs one benchmark configuration in a child JVM with the same class path and
+     * echoes its output.
+     */
+    private static void fork(int n, String dist, String alg, int warmups, int iterations)
+	throws IOException, InterruptedException
+    {
+	String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+	List<String> command = new ArrayList<String>();
+	command.add(java);
+
+	// pass on the Vector API module used by vectorQuicksort, if this JVM has it
+	if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+	    command.add("--add-modules");
+	    command.add("jdk.incubator.vector");
+	}
+
+	// the child reads the same cutoff file as this JVM would
+	command.add("-Dsorting.properties=" + Sorting.CUTOFF_FILE);
+
+	command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+				     "SortingBenchmark", "-fork",
+				     Integer.toString(n), dist, alg,
+				     Integer.toString(warmups),
+				     Integer.toString(iterations)));
+	ProcessBuilder pb = new ProcessBuilder(command);
+	pb.redirectErrorStream(true);
+	Process p = pb.start();
+
+	BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()));
+	String line;
+	while ((line = in.readLine()) != null)
+	    System.out.println(line);
+
+	if (p.waitFor() != 0)
+	    System.out.println("ERROR:  benchmark of " + alg + " on " + dist + " input of size "
+			       + n + " failed");
+    }
+
+
+    /*
+     * Splits a comma-separated command line argument, expanding "all" to the given list.
+     */
+    private static String [] expand(String arg, String [] all)
+    {
+	if (arg.equals("all"))
+	    return all;
+	return arg.split(",");
+    }
+
+
+    /**
+     *  Prints a message describing proper usage with respect to required
+     *  command line parameters and exits.
+     */
+    public static void usage()
+    {
+	System.out.println("Usage: java SortingBenchmark sizes distributions algorithms [warmups iterations]");
+	System.out.println("  sizes         - comma-separated array sizes");
+	System.out.println("  distributions - comma-separated list of, or \"all\":");
+	System.out.println("                  " + String.join(", ", DISTRIBUTIONS));
+	System.out.println("  algorithms    - comma-separated list of, or \"all\":");
+	System.out.println("                  " + String.join(", ", ALGORITHMS));
+	System.out.println("  warmups       - number of discarded warmup iterations (default 5)");
+	System.out.println("  iterations    - number of measured iterations (default 5)");
+	System.out.println("Key comparisons per sort are reported for " + String.join(", ", COUNTED));
+	System.exit(1);
+    }
+
+
+    /**
+     *  Benchmarks every combination of the requested array sizes, input distributions
+     *  and algorithms, each in its own JVM.
+     *  Requires three command line parameters, with two optional ones of type
+     *  <code>int</code>:
+     *  <ul>
+     *   <li> sizes (comma-separated lengths of arrays to sort)
+     *   <li> distributions (comma-separated input distributions, or "all")
+     *   <li> algorithms (comma-separated algorithm names, or "all")
+     *   <li> warmups (number of warmup iterations, default 5)
+     *   <li> iterations (number of measured iterations, default 5)
+     *  </ul>
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+	if (args.length == 6 && args[0].equals("-fork")) {
+	    runFork(parseInt(args[1]), args[2], args[3], parseInt(args[4]), parseInt(args[5]));
+	    return;
+	}
+
+	if (args.length != 3 && args.length != 5)  usage();
+
+	String [] sizes = args[0].split(",");
+	String [] dists = expand(args[1], DISTRIBUTIONS);
+	String [] algs = expand(args[2], ALGORITHMS);
+	int warmups = args.length == 5 ? parseInt(args[3]) : 5;
+	int iterations = args.length == 5 ? parseInt(args[4]) : 5;
+
+	if (warmups < 0 || iterations <= 0)
+	    throw new IllegalArgumentException("Illegal iteration counts: " + warmups + ", " + iterations);
+
+	System.out.println(String.format("%-20s %-10s %10s %14s %12s %14s %12s %14s",
+					 "algorithm", "input", "n", "ops/s", "stddev",
+					 "alloc B/op", "alloc MB/s", "compares/op"));
+
+	for (String size : sizes)
+	    for (String dist : dists)
+		for (String alg : algs)
+		    fork(parseInt(size), dist, alg, warmups, iterations);
+    }
+}
@@ -0,0 +1,280 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import static java.lang.Integer.parseInt;
+import java.lang.IllegalArgumentException;
+
+/**
+ * Calibrates the cutoffs used by <code>Sorting</code> on the machine it runs on.  For each
+ * cutoff, a range of candidate values is tried on a common random array, the one with the
+ * smallest median running time is kept, and the results are written to the properties
+ * file that <code>Sorting</code> reads when it is loaded (<code>sorting.properties</code>
+ * in the current directory, or the file named by the system property of the same name).
+ * <ul>
+ *  <li> quicksort.cutoff (quicksortImproved and its variants, quicksort3Way and
+ *       dualPivotQuicksort)
+ *  <li> network.cutoff (networkQuicksort)
+ *  <li> mergesort.cutoff (mergeSort)
+ * </ul>
+ * The cutoffs are final in <code>Sorting</code>, so every candidate is measured in a
+ * freshly forked JVM that reads it from a temporary properties file.  If the smallest or
+ * largest candidate wins, the search continues past it (halving or doubling) for as long
+ * as the times keep improving.
+ *
+ * @version 1.0
+ */
+public class SortingCalibration {
+
+    /** candidate values for each cutoff */
+    private static final int [] QUICKSORT_CANDIDATES = { 8, 16, 32, 64, 128, 256, 512 };
+    private static final int [] NETWORK_CANDIDATES = { 4, 6, 8, 10, 12, 14, 16 };
+    private static final int [] MERGESORT_CANDIDATES = { 1, 8, 16, 32, 64, 128, 256 };
+
+    /** ranges accepted by Sorting for each cutoff */
+    private static final int QUICKSORT_MIN = 8, QUICKSORT_MAX = 1 << 20;
+    private static final int NETWORK_MIN = 2, NETWORK_MAX = 16;
+    private static final int MERGESORT_MIN = 1, MERGESORT_MAX = 1 << 20;
+
+    /** a child JVM warms up for at least this long and this many sorts before timing */
+    private static final long WARMUP_NANOS = 1000000000L;
+    private static final int WARMUP_SORTS = 20;
+
+
+    /**
+     * Measures the candidate cutoffs on an array of n random values and returns the
+     * fastest ones.  Each cutoff is calibrated with the ones chosen before it in effect.
+     *
+     * @return the chosen cutoffs, keyed as in the properties file
+     * @param  n size of the array to sort
+     * @param  rounds number of timed sorts per candidate
+     * @throws IllegalArgumentException if n <= 0 or rounds <= 0
+     * @throws IOException if the temporary properties file cannot be written or a child
+     *         JVM fails
+     * @throws InterruptedException if interrupted while waiting for a child JVM
+     */
+    public static Properties calibrate(int n, int rounds)
+	throws IOException, InterruptedException
+    {
+	if (n <= 0 || rounds <= 0)
+	    throw new IllegalArgumentException("Illegal calibration size: " + n + ", " + rounds);
+
+	Properties cutoffs = new Properties();
+	Path file = Files.createTempFile("sorting", ".properties");
+	try {
+	    search(cutoffs, file, "quicksort.cutoff", QUICKSORT_CANDIDATES,
+		   QUICKSORT_MIN, QUICKSORT_MAX, new int [] { 0, 1, 4 }, n, rounds);
+	    search(cutoffs, file, "network.cutoff", NETWORK_CANDIDATES,
+		   NETWORK_MIN, NETWORK_MAX, new int [] { 2 }, n, rounds);
+	    search(cutoffs, file, "mergesort.cutoff", MERGESORT_CANDIDATES,
+		   MERGESORT_MIN, MERGESORT_MAX, new int [] { 3 }, n, rounds);
+	}
+	finally {
+	    Files.deleteIfExists(file);
+	}
+
+	return cutoffs;
+    }
+
+
+    /*
+     * Times the given algorithms with each candidate value of key, extending the candidates
+     * past the first or last one (within [min,max]) while that end keeps winning, and
+     * stores the fastest value in cutoffs
+     */
+    private static void search(Properties cutoffs, Path file, String key, int [] candidates,
+			       int min, int max, int [] algs, int n, int rounds)
+	throws IOException, InterruptedException
+    {
+	int best = candidates[0];
+	long bestTime = Long.MAX_VALUE;
+	for (int c : candidates) {
+	    long t = measure(cutoffs, file, key, c, algs, n, rounds);
+	    if (t < bestTime) {
+		best = c;
+		bestTime = t;
+	    }
+	}
+
+	// the largest candidate won: keep doubling while that is faster
+	int c = candidates[candidates.length-1];
+	while (best == c && c < max) {
+	    c = (int) Math.min(2L * c, max);
+	    long t = measure(cutoffs, file, key, c, algs, n, rounds);
+	    if (t < bestTime) {
+		best = c;
+		bestTime = t;
+	    }
+	}
+
+	// the smallest candidate won: keep halving while that is faster
+	c = candidates[0];
+	while (best == c && c > min) {
+	    c = Math.max(c / 2, min);
+	    long t = measure(cutoffs, file, key, c, algs, n, rounds);
+	    if (t < bestTime) {
+		best = c;
+		bestTime = t;
+	    }
+	}
+
+	cutoffs.setProperty(key, Integer.toString(best));
+    }
+
+
+    /*
+     * Writes cutoffs, with key set to the candidate value, to file and returns the sum
+     * over the given algorithms of the median times measured in a child JVM reading it
+     */
+    private static long measure(Properties cutoffs, Path file, String key, int cutoff,
+				int [] algs, int n, int rounds)
+	throws IOException, InterruptedException
+    {
+	Properties candidate = new Properties();
+	candidate.putAll(cutoffs);
+	candidate.setProperty(key, Integer.toString(cutoff));
+	try (Writer out = Files.newBufferedWriter(file)) {
+	    candidate.store(out, null);
+	}
+
+	long total = 0;
+	for (int alg : algs)
+	    total += fork(file, alg, n, rounds);
+	print(key, cutoff, total);
+	return total;
+    }
+
+
+    /*
+     * Runs time() for one algorithm in a child JVM that reads its cutoffs from file, and
+     * returns the median time it reports
+     */
+    private static long fork(Path file, int alg, int n, int rounds)
+	throws IOException, InterruptedException
+    {
+	String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+	List<String> command = new ArrayList<String>();
+	command.add(java);
+	command.add("-Dsorting.properties=" + file);
+	command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+				     "SortingCalibration", "-fork",
+				     Integer.toString(alg), Integer.toString(n),
+				     Integer.toString(rounds)));
+	ProcessBuilder pb = new ProcessBuilder(command);
+	pb.redirectErrorStream(true);
+	Process p = pb.start();
+
+	BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()));
+	String result = null;
+	String line;
+	while ((line = in.readLine()) != null)
+	    result = line;
+
+	if (p.waitFor() != 0 || result == null)
+	    throw new IOException("Calibration run of algorithm " + alg + " failed: " + result);
+	return Long.parseLong(result.trim());
+    }
+
+
+    /*
+     * Returns the median time in nanoseconds of sorting a copy of source with the given
+     * algorithm (0 = quicksort3Way, 1 = dualPivotQuicksort, 2 = networkQuicksort,
+     * 3 = mergeSort, 4 = quicksortImproved) over the given number of rounds
+     */
+    private static long time(int alg, int [] source, int [] work, int [] scratch, int rounds) {
+	long [] t = new long[rounds];
+	for (int i=0; i<rounds; ++i) {
+	    System.arraycopy(source, 0, work, 0, source.length);
+
+	    long t0 = System.nanoTime();
+	    switch (alg) {
+	    case 0:  Sorting.quicksort3Way(work); break;
+	    case 1:  Sorting.dualPivotQuicksort(work); break;
+	    case 2:  Sorting.networkQuicksort(work); break;
+	    case 4:  Sorting.quicksortImproved(work); break;
+	    default: Sorting.mergeSort(work, scratch); break;
+	    }
+	    t[i] = System.nanoTime() - t0;
+	}
+
+	Arrays.sort(t);
+	return t[rounds / 2];
+    }
+
+
+    /*
+     * Body of a child JVM: sorts the same random array of n values (seeded by n, so every
+     * candidate sees the same input) until both warmup minimums are met, then times the
+     * given number of sorts and prints the median time
+     */
+    private static void runFork(int alg, int n, int rounds) {
+	int [] source = new int[n];
+	Random R = new Random(n);
+	for (int i=0; i<n; ++i)
+	    source[i] = R.nextInt();
+	int [] work = new int[n];
+	int [] scratch = new int[n];
+
+	// warm up the JIT compiler; a fixed number of rounds is too short for small n
+	long start = System.nanoTime();
+	for (int i=0; i<WARMUP_SORTS || System.nanoTime() - start < WARMUP_NANOS; ++i)
+	    time(alg, source, work, scratch, 1);
+
+	System.out.println(time(alg, source, work, scratch, rounds));
+    }
+
+
+    /*
+     * Prints the median time measured for one candidate cutoff
+     */
+    private static void print(String key, int cutoff, long nanos) {
+	System.out.println(String.format("%-18s %6d %10.3f ms", key, cutoff, nanos / 1e6));
+    }
+
+
+    /**
+     *  Prints a message describing proper usage with respect to required
+     *  command line parameters and exits.
+     */
+    public static void usage()
+    {
+	System.out.println("Usage: java SortingCalibration [arraySize [rounds]]");
+	System.out.println("  arraySize - number of elements of the calibration array (default 1000000)");
+	System.out.println("  rounds    - number of timed sorts per candidate cutoff (default 5)");
+	System.exit(1);
+    }
+
+
+    /**
+     *  Calibrates the cutoffs and writes them to the properties file read by
+     *  <code>Sorting</code>.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+	if (args.length == 4 && args[0].equals("-fork")) {
+	    runFork(parseInt(args[1]), parseInt(args[2]), parseInt(args[3]));
+	    return;
+	}
+
+	if (args.length > 2)  usage();
+
+	int n = args.length > 0 ? parseInt(args[0]) : 1000000;
+	int rounds = args.length > 1 ? parseInt(args[1]) : 5;
+
+	Properties cutoffs = calibrate(n, rounds);
+
+	try (Writer out = Files.newBufferedWriter(Paths.get(Sorting.CUTOFF_FILE))) {
+	    cutoffs.store(out, "Sorting cutoffs calibrated on " + n + " random values");
+	}
+	System.out.println("Wrote " + cutoffs + " to " + Sorting.CUTOFF_FILE);
+    }
+}
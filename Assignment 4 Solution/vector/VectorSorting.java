@@ -0,0 +1,406 @@
+import java.util.function.BiConsumer;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Quicksort using the incubating Vector API (<code>jdk.incubator.vector</code>) for the
+ * partitioning step and for sorting small blocks.  This class needs the module at compile
+ * and run time, so it is kept apart from the other sources, which compile without it:
+ * <pre>
+ *   javac *.java
+ *   javac --add-modules jdk.incubator.vector -d . vector/VectorSorting.java
+ *   java --add-modules jdk.incubator.vector A4Q5 1000000 5
+ * </pre>
+ * It is not meant to be used directly: <code>Sorting.vectorQuicksort</code> loads it by
+ * reflection and falls back to <code>Sorting.blockQuicksort</code> when the module (or
+ * this class) is not available.
+ *
+ * @version 1.0
+ */
+public class VectorSorting implements BiConsumer<int [], int []> {
+
+    /** vector shape used; wider shapes are capped at 8 lanes to keep PACK small */
+    private static final VectorSpecies<Integer> SPECIES =
+	IntVector.SPECIES_PREFERRED.length() > 8 ? IntVector.SPECIES_256 : IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    /** subarrays with at most LEAF entries are sorted by sortLeaf */
+    private static final int LEAF = LANES * LANES;
+
+    /*
+     * PACK[m] moves the lanes whose bit is set in m to the front of a vector (in order),
+     * followed by the remaining lanes.  JDK 17 has no compress operation, so this table
+     * takes its place in the partitioning step.
+     */
+    private static final VectorShuffle<Integer> [] PACK = packTable();
+
+    /*
+     * lane i of BITS is 2^i; blending it with ZERO under a mask and OR-ing the lanes gives
+     * the mask as an int (VectorMask.toLong is not compiled to vector code in JDK 17)
+     */
+    private static final IntVector BITS =
+	IntVector.broadcast(SPECIES, 1).lanewise(VectorOperators.LSHL, IntVector.zero(SPECIES).addIndex(1));
+    private static final IntVector ZERO = IntVector.zero(SPECIES);
+
+    /*
+     * Comparators (i,j) of an optimal sorting network on LANES inputs (19 comparators for 8
+     * inputs, 5 for 4, 1 for 2), applied to the rows of a LANES x LANES block
+     */
+    private static final int [][] NETWORK = LANES == 8 ?
+	new int [][] { {0,2}, {1,3}, {4,6}, {5,7}, {0,4}, {1,5}, {2,6}, {3,7}, {0,1}, {2,3},
+		       {4,5}, {6,7}, {2,4}, {3,5}, {1,4}, {3,6}, {1,2}, {3,4}, {5,6} } :
+	LANES == 4 ? new int [][] { {0,1}, {2,3}, {0,2}, {1,3}, {1,2} } :
+	new int [][] { {0,1} };
+
+    /*
+     * Shuffles and masks of the bitonic merge of two vectors: REVERSE reverses the lanes,
+     * SWAPk exchanges the lanes whose indices differ in bit k, and UPPERk selects the
+     * lanes with bit k set
+     */
+    private static final VectorShuffle<Integer> REVERSE =
+	VectorShuffle.fromOp(SPECIES, i -> LANES-1 - i);
+    private static final VectorShuffle<Integer> SWAP0 =
+	VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+    private static final VectorShuffle<Integer> SWAP1 =
+	VectorShuffle.fromOp(SPECIES, i -> i ^ (2 & LANES-1));
+    private static final VectorShuffle<Integer> SWAP2 =
+	VectorShuffle.fromOp(SPECIES, i -> i ^ (4 & LANES-1));
+    private static final VectorMask<Integer> UPPER0 = mask(1);
+    private static final VectorMask<Integer> UPPER1 = mask(2);
+    private static final VectorMask<Integer> UPPER2 = mask(4);
+
+
+    private static VectorMask<Integer> mask(int bit) {
+	boolean [] set = new boolean[LANES];
+	for (int lane=0; lane<LANES; ++lane)
+	    set[lane] = (lane & bit) != 0;
+	return VectorMask.fromArray(SPECIES, set, 0);
+    }
+
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static VectorShuffle<Integer> [] packTable() {
+	VectorShuffle<Integer> [] table = (VectorShuffle<Integer> []) new VectorShuffle[1 << LANES];
+	int [] idx = new int[LANES];
+	for (int m=0; m<table.length; ++m) {
+	    int k = 0;
+	    for (int lane=0; lane<LANES; ++lane)
+		if ((m & (1 << lane)) != 0)
+		    idx[k++] = lane;
+	    for (int lane=0; lane<LANES; ++lane)
+		if ((m & (1 << lane)) == 0)
+		    idx[k++] = lane;
+	    table[m] = VectorShuffle.fromArray(SPECIES, idx, 0);
+	}
+	return table;
+    }
+
+
+    /**
+     * Sorts the input array using B as scratch space; same as <code>sort(A,B)</code>.
+     *
+     * @param A integer array
+     * @param B scratch array with at least as many entries as A
+     */
+    public void accept(int [] A, int [] B)
+    {
+	sort(A, B);
+    }
+
+
+    /**
+     * Sorts the input array using introsort with vectorized partitioning.  Each partition
+     * step compares LANES entries with the pivot at once, packs the entries less than the
+     * pivot to one end of the vector with a single shuffle, and stores it to both ends of
+     * an auxiliary array.  Subarrays with at most LANES*LANES entries are sorted by a
+     * sorting network applied to whole rows of LANES entries, and the resulting sorted
+     * columns are combined by vector bitonic merges.
+     *
+     * @param A integer array
+     */
+    public static void sort(int [] A)
+    {
+	sort(A, new int[A.length]);
+    }
+
+
+    /**
+     * Sorts the input array using the same quicksort as <code>sort(A)</code>, but uses the
+     * caller-supplied array B as the auxiliary array instead of allocating one.
+     *
+     * @param  A integer array
+     * @param  B scratch array with at least as many entries as A
+     * @throws IllegalArgumentException if B is null or shorter than A
+     */
+    public static void sort(int [] A, int [] B)
+    {
+	if (B == null)
+	    throw new IllegalArgumentException("Scratch array B must not be null");
+	if (B.length < A.length)
+	    throw new IllegalArgumentException("Scratch array B has " + B.length
+					       + " entries, need " + A.length);
+
+	if (A.length > 1) {
+	    int depth = 2 * (31 - Integer.numberOfLeadingZeros(A.length));
+	    vsort(A, B, 0, A.length-1, depth);
+	}
+    }
+
+
+    /*
+     * recursive worker function: sorts A[p..r] using B for partitioning and for the
+     * leaves; subarrays that exceed the recursion depth limit are heap sorted
+     */
+    private static void vsort(int [] A, int [] B, int p, int r, int depth) {
+	while (r-p+1 > LEAF) {
+	    if (depth == 0) {
+		hsort(A, p, r);
+		return;
+	    }
+	    --depth;
+
+	    // pivot value is the median of the first, middle and last entries
+	    int mid = (r + p) >>> 1;
+	    int a = A[p], b = A[mid], c = A[r];
+	    int x = a <= b ? (b <= c ? b : Math.max(a, c)) : (a <= c ? a : Math.max(b, c));
+
+	    int q = partition(A, B, p, r, x, false);
+	    if (q == p) {
+		// x is the smallest entry: split off the entries equal to it
+		p = partition(A, B, p, r, x, true);
+		continue;
+	    }
+
+	    // recurse into the smaller side to bound the stack depth
+	    if (q-p < r-q+1) {
+		vsort(A, B, p, q-1, depth);
+		p = q;
+	    }
+	    else {
+		vsort(A, B, q, r, depth);
+		r = q-1;
+	    }
+	}
+
+	sortLeaf(A, B, p, r);
+    }
+
+
+    /*
+     * Partitions A[p..r] around x through B[p..r]: returns q such that A[p..q-1] < x and
+     * A[q..r] >= x (or A[p..q-1] <= x and A[q..r] > x if orEqual is true)
+     */
+    private static int partition(int [] A, int [] B, int p, int r, int x, boolean orEqual) {
+	IntVector pivot = IntVector.broadcast(SPECIES, x);
+
+	// invariant: B[p..lo-1] and B[hi+1..r] hold A[p..i-1], split around x
+	int lo = p;
+	int hi = r;
+	int i = p;
+	while (r-i+1 >= 2*LANES) {
+	    IntVector v = IntVector.fromArray(SPECIES, A, i);
+	    // the comparison operator must be a constant for the JIT to use vector code
+	    VectorMask<Integer> m = orEqual ? v.compare(VectorOperators.LE, pivot)
+					    : v.compare(VectorOperators.LT, pivot);
+	    int count = m.trueCount();
+	    int bits = ZERO.blend(BITS, m).reduceLanes(VectorOperators.OR);
+	    v = v.rearrange(PACK[bits]);
+
+	    // the unused lanes of both stores land in the gap B[lo..hi], which is at least
+	    // 2*LANES long, and are overwritten later
+	    v.intoArray(B, lo);
+	    v.intoArray(B, hi-LANES+1);
+	    lo += count;
+	    hi -= LANES - count;
+	    i += LANES;
+	}
+
+	for (; i<=r; ++i) {
+	    int v = A[i];
+	    if (orEqual ? v <= x : v < x)
+		B[lo++] = v;
+	    else
+		B[hi--] = v;
+	}
+
+	System.arraycopy(B, p, A, p, r-p+1);
+	return lo;
+    }
+
+
+    /*
+     * Sorts the leaf A[p..r] (at most LEAF entries) using T[0..2*LEAF-1] as scratch space.
+     * The entries are copied row by row into a LANES x LANES block, padded with
+     * Integer.MAX_VALUE, and the columns are sorted by applying the sorting network to whole
+     * rows with vector min and max.  The block is transposed, which
+     * turns the sorted columns into sorted rows, and the rows are then merged pairwise, one
+     * vector at a time, by bitonic merges (mergeRuns) until one sorted run is left.  Leaves
+     * of at most 2*LANES entries, or with T shorter than 2*LEAF, are insertion sorted.
+     */
+    private static void sortLeaf(int [] A, int [] T, int p, int r) {
+	int n = r-p+1;
+	if (n <= 2*LANES || T.length < 2*LEAF) {
+	    isort(A, p, r);
+	    return;
+	}
+
+	System.arraycopy(A, p, T, 0, n);
+	for (int k=n; k<LEAF; ++k)
+	    T[k] = Integer.MAX_VALUE;
+
+	for (int [] cmp : NETWORK) {
+	    IntVector u = IntVector.fromArray(SPECIES, T, cmp[0] * LANES);
+	    IntVector v = IntVector.fromArray(SPECIES, T, cmp[1] * LANES);
+	    u.min(v).intoArray(T, cmp[0] * LANES);
+	    u.max(v).intoArray(T, cmp[1] * LANES);
+	}
+
+	// transpose into T[LEAF..2*LEAF-1]: row i is now column i of the block
+	for (int i=0; i<LANES; ++i)
+	    for (int j=0; j<LANES; ++j)
+		T[LEAF + i*LANES + j] = T[j*LANES + i];
+
+	// merge runs of len entries from one half of T into the other
+	int src = LEAF;
+	int dst = 0;
+	for (int len=LANES; len<LEAF; len*=2) {
+	    for (int k=0; k<LEAF; k+=2*len)
+		mergeRuns(T, src+k, src+k+len, len, dst+k);
+	    int tmp = src;
+	    src = dst;
+	    dst = tmp;
+	}
+
+	System.arraycopy(T, src, A, p, n);
+    }
+
+
+    /*
+     * Merges the sorted runs T[a..a+len-1] and T[b..b+len-1] (len a multiple of LANES) into
+     * T[o..o+2*len-1].  The vector merged last holds the LANES largest entries seen so far;
+     * it is merged with the next vector of the run whose next entry is smaller, and the
+     * lower half of the result is final.
+     */
+    private static void mergeRuns(int [] T, int a, int b, int len, int o) {
+	int ea = a+len;
+	int eb = b+len;
+	merge(T, o, a, b);
+	a += LANES;
+	b += LANES;
+	o += LANES;
+
+	while (a < ea || b < eb) {
+	    int next;
+	    if (b == eb || (a < ea && T[a] <= T[b])) {
+		next = a;
+		a += LANES;
+	    }
+	    else {
+		next = b;
+		b += LANES;
+	    }
+
+	    // the upper half of the previous merge was stored at T[o..o+LANES-1]
+	    merge(T, o, o, next);
+	    o += LANES;
+	}
+    }
+
+
+    /*
+     * Bitonic merge of the sorted vectors at T[a] and T[b]: stores the smaller LANES entries,
+     * sorted, to T[o..o+LANES-1] and the larger ones to T[o+LANES..o+2*LANES-1].  After the
+     * second vector is reversed, each stage exchanges the lanes that differ in one index bit
+     * and keeps the smaller entry in the lower lane.  The stages are written out (with
+     * constant conditions on LANES), and no vector is passed to another method, so that the
+     * JIT compiler keeps the vectors in registers instead of allocating them.
+     */
+    private static void merge(int [] T, int o, int a, int b) {
+	IntVector u = IntVector.fromArray(SPECIES, T, a);
+	IntVector v = IntVector.fromArray(SPECIES, T, b).rearrange(REVERSE);
+	IntVector lo = u.min(v);
+	IntVector hi = u.max(v);
+
+	if (LANES >= 8) {
+	    u = lo.rearrange(SWAP2);
+	    v = hi.rearrange(SWAP2);
+	    lo = lo.min(u).blend(lo.max(u), UPPER2);
+	    hi = hi.min(v).blend(hi.max(v), UPPER2);
+	}
+	if (LANES >= 4) {
+	    u = lo.rearrange(SWAP1);
+	    v = hi.rearrange(SWAP1);
+	    lo = lo.min(u).blend(lo.max(u), UPPER1);
+	    hi = hi.min(v).blend(hi.max(v), UPPER1);
+	}
+	u = lo.rearrange(SWAP0);
+	v = hi.rearrange(SWAP0);
+	lo = lo.min(u).blend(lo.max(u), UPPER0);
+	hi = hi.min(v).blend(hi.max(v), UPPER0);
+
+	lo.intoArray(T, o);
+	hi.intoArray(T, o+LANES);
+    }
+
+
+    /*
+     * Sorts A[p..r] using insertion sort
+     */
+    private static void isort(int [] A, int p, int r) {
+	for (int i=p+1; i<=r; ++i) {
+	    int j = i;
+	    int tmp = A[i];
+	    while (j > p && tmp < A[j-1]) {
+		A[j] = A[j-1];
+		--j;
+	    }
+	    A[j] = tmp;
+	}
+    }
+
+
+    /*
+     * Heap sort on A[p..r]
+     */
+    private static void hsort(int [] A, int p, int r) {
+	int n = r-p+1;
+
+	// BuildMaxHeap - convert A to a representation of a MaxHeap
+	for (int i=(n >> 1) - 1; i>=0; --i)
+	    siftDown(A, p, i, n);
+
+	for (int i=n-1; i>0; --i) {
+	    // DeleteMax - remove largest element of heap, copy to location i
+	    int tmp = A[p];
+	    A[p] = A[p+i];
+	    A[p+i] = tmp;
+
+	    // MaxHeapify(A,0) to re-establish max heap of size i
+	    siftDown(A, p, 0, i);
+	}
+    }
+
+
+    /*
+     * MaxHeapify(A,j) on the heap of size n stored in A[p..p+n-1]
+     */
+    private static void siftDown(int [] A, int p, int j, int n) {
+	int x = A[p+j];
+	while (true) {
+	    int l = (j << 1) + 1;
+	    if (l >= n)
+		break;
+	    int largest = l;
+	    if (l+1 < n && A[p+l+1] > A[p+l])
+		largest = l+1;
+	    if (A[p+largest] <= x)
+		break;
+	    A[p+j] = A[p+largest];
+	    j = largest;
+	}
+	A[p+j] = x;
+    }
+}